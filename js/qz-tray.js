@@ -1505,6 +1505,7 @@ var qz = (function() {
 
             /**
              * Provides a list, with additional information, for each printer available to QZ.
+             * Printers whose driver doesn't respond in time are listed with an <code>error</code> instead of their details.
              *
              * @returns {Promise<Array<Object>|Object|Error>}
              *
@@ -1528,6 +1529,8 @@ var qz = (function() {
              *  @param {null|boolean} [options.jobData=false] Flag indicating if raw spool file content should be return as well as status information (Windows only)
              *  @param {null|number} [options.maxJobData=-1] Maximum number of bytes to returns for raw spooled file content (Windows only)
              *  @param {null|string} [options.flavor="plain"] Flavor of data format returned. Valid flavors are <code>[base64 | hex | plain*]</code> (Windows only)
+             *  @param {null|Array<string>} [options.eventTypes] Only report these event types. Valid types are <code>[JOB | PRINTER]</code>
+             *  @param {null|string} [options.severity] Only report events of this severity or worse. Valid severities are <code>[INFO | WARN | ERROR | FATAL]</code>
              *
              * @memberof qz.printers
              */
@@ -1541,6 +1544,8 @@ var qz = (function() {
                 if (options && options.jobData == true) params.jobData = true;
                 if (options && options.maxJobData) params.maxJobData = options.maxJobData;
                 if (options && options.flavor) params.flavor = options.flavor;
+                if (options && options.eventTypes) params.eventTypes = options.eventTypes;
+                if (options && options.severity) params.severity = options.severity;
                 return _qz.websocket.dataPromise('printers.startListening', params);
             },
 
@@ -1723,6 +1728,10 @@ var qz = (function() {
          *   @param {string} [data.options.language] Required with <code>[raw]</code> type + <code>[html|image|pdf]</code> format. Printer language.
          *   @param {string} [data.options.quantization="alpha"] Optional with <code>[raw]</code> type + <code>[html|image|pdf]</code> format. The "black pixel" quantization method used.  Valid values are <code>[alpha* | black | luma | dither]</code>.
          *   @param {number} [data.options.threshold=127] Optional with <code>[raw]</code> type + <code>[html|image|pdf]</code> format. The "black pixel" threshold used for quantization.  Default is <code>127</code>.
+         *   @param {string} [data.options.rasterType="color"] Optional with <code>[raw]</code> type + <code>[html|image|pdf]</code> format. Depth the content is rendered at before conversion, ignored for color languages such as <code>[evolis]</code>.  Valid values are <code>[color* | gray | binary]</code>.
+         *       <code>binary</code> is thresholded by the renderer, but greatly reduces memory for large labels.  Ignored with <code>alpha</code> quantization, which needs the color raster's transparency.
+         *   @param {boolean} [data.options.wrapPages=false] Optional with <code>[raw]</code> type + <code>[html|image|pdf]</code> format.
+         *       Wraps every converted page in the language's label header and footer, e.g. <code>^XA</code> ... <code>^XZ</code>, instead of leaving the framing to the surrounding data.
          *   @param {number} [data.options.x=0] Optional with <code>[raw]</code> type + <code>[html|image|pdf]</code> format for language(s) <code>[cpcl|epl]</code>. The X position of the image.
          *   @param {number} [data.options.y=0] Optional with <code>[raw]</code> type + <code>[html|image|pdf]</code> format for language(s) <code>[cpcl|epl]</code>. The Y position of the image.
          *   @param {string|number} [data.options.dotDensity="single"] Optional with <code>[raw]</code> type + <code>[html|image|pdf]</code> format for language(s) <code>[escpos]</code>.  Valid values are <code>[single* | double | triple | single-legacy | double-legacy]</code> or the escpos "decimal" equivalent
@@ -1738,10 +1747,13 @@ var qz = (function() {
          *   @param {number} [data.options.pageHeight] Optional with <code>[html | pdf]</code> formats. Height of the rendering.
          *       Defaults to paper height for <code>[pdf]</code>, or auto sized for <code>[html]</code>.
          *   @param {string} [data.options.pageRanges] Optional with <code>[pdf]</code> formats. Comma-separated list of page ranges to include.
+         *       With <code>[raw]</code> type, each page included is converted in order; use <code>wrapPages</code> to print each as its own label.
          *   @param {boolean} [data.options.ignoreTransparency=false] Optional with <code>[pdf]</code> formats. Instructs transparent PDF elements to be ignored.
          *       Transparent PDF elements are known to degrade performance and quality when printing.
          *   @param {boolean} [data.options.altFontRendering=false] Optional with <code>[pdf]</code> formats. Instructs PDF to be rendered using PDFBOX 1.8 techniques.
          *       Drastically improves low-DPI PDF print quality on Windows.
+         *   @param {boolean} [data.options.passthrough=false] Optional with <code>[pdf]</code> formats. Sends the selected pages to the printer as a PDF, leaving all rendering to the printer.
+         *       Only used when the printer accepts PDF documents and no options requiring local rendering are set, otherwise the PDF is rendered as usual.
          * @param {...*} [arguments] Additionally three more parameters can be specified:<p/>
          *     <code>{boolean} [resumeOnError=false]</code> Whether the chain should continue printing if it hits an error on one the the prints.<p/>
          *     <code>{string|Array<string>} [signature]</code> Pre-signed signature(s) of the JSON string for containing <code>call</code>, <code>params</code>, and <code>timestamp</code>.<p/>
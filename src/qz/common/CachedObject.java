@@ -1,21 +1,61 @@
 package qz.common;
 
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Supplier;
 
 /**
  * A generic class that encapsulates an object for caching. The cached object
  * will be refreshed automatically when accessed after its lifespan has expired.
+ * <p/>
+ * Safe for use from multiple threads.  Only one refresh runs at a time; callers arriving during a refresh wait for
+ * its value rather than starting their own.  With refresh-ahead enabled, expired values are served for up to the
+ * maximum staleness while a background refresh replaces them.  A supplier that throws keeps the last value and
+ * is retried with exponential back-off.
  *
  * @param <T> The type of object to be cached.
  */
 public class CachedObject<T> {
+    private static final Logger log = LogManager.getLogger(CachedObject.class);
+
     public static final long DEFAULT_LIFESPAN = 5000; // in milliseconds
-    T lastObject;
-    Supplier<T> supplier;
-    private long timestamp;
-    private long lifespan;
+    private static final long MIN_BACKOFF = 1000; // in milliseconds
+    private static final long MAX_BACKOFF = 60000; // in milliseconds
+    private static final double REFRESH_AHEAD_AGE = 0.8; // fraction of the lifespan
+
+    private static final ExecutorService refresher = Executors.newCachedThreadPool(r -> {
+        Thread thread = new Thread(r, "cache-refresh");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    volatile T lastObject;
+    volatile Supplier<T> supplier;
+    private volatile boolean loaded = false;
+    private volatile long timestamp;
+    private volatile long invalidatedAt = Long.MIN_VALUE;
+    private volatile long lifespan;
+    private volatile long maxStaleness = 0;
+    private volatile boolean refreshAhead = false;
+
+    private final Object loadLock = new Object();
+    private final AtomicBoolean refreshing = new AtomicBoolean(false);
+    private volatile long retryAfter = Long.MIN_VALUE;
+    private long backoff = 0;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong staleHits = new AtomicLong();
+    private final AtomicLong loads = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+    private final AtomicLong loadMillis = new AtomicLong();
+    private volatile long maxLoadMillis = 0;
 
     /**
      * Creates a new CachedObject with a default lifespan of 5000 milliseconds
@@ -57,6 +97,26 @@ public class CachedObject<T> {
         lifespan = Math.max(0, milliseconds); // prevent overflow
     }
 
+    /**
+     * Sets how long past its lifespan the cached object may still be returned while it refreshes in the background.
+     * Only used with refresh-ahead enabled.
+     *
+     * @param milliseconds The maximum staleness in milliseconds
+     */
+    public void setMaxStaleness(long milliseconds) {
+        maxStaleness = Math.max(0, milliseconds);
+    }
+
+    /**
+     * Refreshes the cached object in the background when it nears the end of its lifespan, or has expired within
+     * the maximum staleness, instead of making callers wait for it.
+     *
+     * @param refreshAhead Whether to refresh asynchronously
+     */
+    public void setRefreshAhead(boolean refreshAhead) {
+        this.refreshAhead = refreshAhead;
+    }
+
     /**
      * Retrieves the cached object.
      * If the cached object's lifespan has expired, it gets refreshed before being returned.
@@ -75,13 +135,149 @@ public class CachedObject<T> {
      * @return The cached object
      */
     public T get(boolean forceRefresh) {
-        long now = TimeUnit.NANOSECONDS.toMillis(System.nanoTime());
-        // check lifespan
-        if (forceRefresh || (timestamp + lifespan <= now)) {
-            timestamp = now;
-            lastObject = supplier.get();
+        long now = now();
+        if (forceRefresh) {
+            return load(now);
         }
-        return lastObject;
+        if (!loaded || timestamp <= invalidatedAt) {
+            return load(Math.max(now - lifespan, invalidatedAt + 1));
+        }
+
+        long age = now - timestamp;
+        if (age < lifespan) {
+            if (refreshAhead && age >= lifespan * REFRESH_AHEAD_AGE) {
+                refreshAsync();
+            }
+            hits.incrementAndGet();
+            return lastObject;
+        }
+        if (now < retryAfter) {
+            // last refresh failed, keep the old value until the back-off passes
+            staleHits.incrementAndGet();
+            return lastObject;
+        }
+        if (refreshAhead && age - lifespan < maxStaleness) {
+            refreshAsync();
+            staleHits.incrementAndGet();
+            return lastObject;
+        }
+
+        return load(now - lifespan);
+    }
+
+    /**
+     * Marks the cached object as out of date, so the next caller waits for a new value rather than being served it.
+     */
+    public void invalidate() {
+        invalidatedAt = now();
+    }
+
+    /**
+     * Loads a new value unless one was already loaded since {@code notBefore}, such as by another caller while this
+     * one waited for the lock.
+     */
+    private T load(long notBefore) {
+        synchronized(loadLock) {
+            if (loaded && timestamp >= notBefore) {
+                hits.incrementAndGet();
+                return lastObject;
+            }
+
+            long start = now();
+            try {
+                T value = supplier.get();
+                lastObject = value;
+                timestamp = start;
+                loaded = true;
+                backoff = 0;
+                retryAfter = Long.MIN_VALUE;
+                return value;
+            }
+            catch(RuntimeException e) {
+                failures.incrementAndGet();
+                if (!loaded) {
+                    throw e;
+                }
+
+                backoff = Math.min(MAX_BACKOFF, Math.max(MIN_BACKOFF, backoff * 2));
+                retryAfter = now() + backoff;
+                log.warn("Unable to refresh cached value, keeping last value for {}ms", backoff, e);
+                return lastObject;
+            }
+            finally {
+                long elapsed = now() - start;
+                loads.incrementAndGet();
+                loadMillis.addAndGet(elapsed);
+                maxLoadMillis = Math.max(maxLoadMillis, elapsed);
+                log.trace("Cached value loaded in {}ms", elapsed);
+            }
+        }
+    }
+
+    private void refreshAsync() {
+        if (!refreshing.compareAndSet(false, true)) {
+            return;
+        }
+
+        // skipped if anything newer than the current value has loaded by the time this runs
+        long current = timestamp;
+        refresher.execute(() -> {
+            try {
+                load(current + 1);
+            }
+            catch(RuntimeException e) {
+                log.warn("Unable to refresh cached value", e);
+            }
+            finally {
+                refreshing.set(false);
+            }
+        });
+    }
+
+    private static long now() {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime());
+    }
+
+    /**
+     * @return Number of calls answered from the cache within its lifespan
+     */
+    public long getHits() {
+        return hits.get();
+    }
+
+    /**
+     * @return Number of calls answered with an expired value, while refreshing or backing off
+     */
+    public long getStaleHits() {
+        return staleHits.get();
+    }
+
+    public long getLoads() {
+        return loads.get();
+    }
+
+    public long getFailures() {
+        return failures.get();
+    }
+
+    /**
+     * @return Mean time spent in the supplier, in milliseconds
+     */
+    public long getAverageLoadTime() {
+        long count = loads.get();
+        return count == 0? 0:loadMillis.get() / count;
+    }
+
+    /**
+     * @return Longest time spent in the supplier, in milliseconds
+     */
+    public long getMaxLoadTime() {
+        return maxLoadMillis;
+    }
+
+    public String getStats() {
+        return String.format("%d hits, %d stale hits, %d loads (%d failed), %dms average load, %dms max load",
+                             getHits(), getStaleHits(), getLoads(), getFailures(), getAverageLoadTime(), getMaxLoadTime());
     }
 
     // Test
@@ -35,7 +35,6 @@ import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.awt.event.KeyEvent;
 import java.io.File;
-import java.io.IOException;
 import java.util.ArrayList;
 import java.util.TimerTask;
 import java.util.concurrent.TimeUnit;
@@ -214,25 +213,21 @@ public class TrayManager {
             addMenuItems();
         }
 
-        // Initialize idle actions
-        // Slow to start JavaFX the first time
-        if (getPref(TRAY_IDLE_JAVAFX)) {
-            performIfIdle((int)TimeUnit.SECONDS.toMillis(60), evt -> {
-                log.debug("IDLE: Starting up JFX for HTML printing");
-                try {
-                    WebApp.initialize();
-                }
-                catch(IOException e) {
-                    log.error("Idle runner failed to preemptively start JavaFX service");
-                }
-            });
+        // Slow to start JavaFX the first time, start it in the background so the first HTML job doesn't wait
+        if (getPref(TRAY_IDLE_JAVAFX) && (!headless || getPref(TRAY_IDLE_JAVAFX_HEADLESS))) {
+            log.debug("Starting up JFX in the background for HTML printing");
+            WebApp.prewarm();
         }
+
+        // Initialize idle actions
         // Slow to find printers the first time if a lot of printers are installed
         // Must run after JavaFX per https://github.com/qzind/tray/issues/924
         if (getPref(TRAY_IDLE_PRINTERS)) {
             performIfIdle((int)TimeUnit.SECONDS.toMillis(120), evt -> {
-                log.debug("IDLE: Performing first run of find printers");
-                PrintServiceMatcher.getNativePrinterList(false, true);
+                // heavier than listing alone: also asks every driver for its details and media, so the next start
+                // can answer printers.find and printers.details from the saved snapshot
+                log.debug("IDLE: Performing first run of find printers, saving printer details for the next start");
+                PrintServiceMatcher.refreshSnapshot();
             });
         }
     }
@@ -370,7 +370,7 @@ public class PrintOptions {
         //grab any useful service defaults
         PrinterResolution defaultRes = null;
         if (output.isSetService()) {
-            defaultRes = output.getNativePrinter().getResolution().value();
+            defaultRes = output.getNativePrinter().getCapabilities().getDefaultResolution();
 
             if (defaultRes == null) {
                 //printer has no default resolution set, see if it is possible to pull anything
@@ -86,7 +86,7 @@ public class PrintOutput {
     }
 
     public Media[] getSupportedMedia() {
-        return (Media[])getPrintService().getSupportedAttributeValues(Media.class, null, null);
+        return printer.getCapabilities().getMedia();
     }
 
 }
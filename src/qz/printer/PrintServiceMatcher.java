@@ -19,6 +19,8 @@ import qz.App;
 import qz.printer.info.CachedPrintServiceLookup;
 import qz.printer.info.NativePrinter;
 import qz.printer.info.NativePrinterMap;
+import qz.printer.info.PrinterCapabilities;
+import qz.printer.info.PrinterSnapshot;
 import qz.utils.ArgValue;
 import qz.utils.PrefsSearch;
 import qz.utils.SystemUtilities;
@@ -28,6 +30,7 @@ import javax.print.PrintServiceLookup;
 import javax.print.attribute.ResolutionSyntax;
 import javax.print.attribute.standard.*;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 public class PrintServiceMatcher {
     private static final Logger log = LogManager.getLogger(PrintServiceMatcher.class);
@@ -39,11 +42,30 @@ public class PrintServiceMatcher {
     // Printer drivers are the source of many crashes, allow detailed logs to help identify problematic driver(s)
     private static final boolean debug = PrefsSearch.getBoolean(ArgValue.PRINTER_DETAILS_DEBUG, App.getTrayProperties());
 
+    // Drivers are queried a few at a time so one that hangs only delays its own printer
+    private static final PrinterDetails printerDetails = new PrinterDetails(PrintServiceMatcher::gatherDetails,
+                                                                            Math.max(2, Math.min(8, Runtime.getRuntime().availableProcessors())),
+                                                                            PrefsSearch.getInt(ArgValue.PRINTER_DETAILS_TIMEOUT, App.getTrayProperties()));
+
+    private static final AtomicBoolean snapshotRefreshing = new AtomicBoolean(false);
+
+    static {
+        // printer configuration changed, e.g. a new driver
+        CachedPrintServiceLookup.addInvalidationListener(printerDetails::invalidate);
+        CachedPrintServiceLookup.addInvalidationListener(PrinterSnapshot::discard);
+        CachedPrintServiceLookup.addInvalidationListener(() -> {
+            for(NativePrinter printer : NativePrinterMap.getInstance().values()) {
+                printer.invalidateCapabilities();
+            }
+        });
+    }
+
     public static NativePrinterMap getNativePrinterList(boolean silent, boolean withAttributes) {
         NativePrinterMap printers = NativePrinterMap.getInstance();
         if(debug) log.debug("Populating the initial PrintService listing...");
         PrintService[] printServices = lookupPrintServices();
         if(debug) log.debug("Found {} PrintService entries", printServices.length);
+        if(debug && useCache) log.debug("PrintService cache: {}", CachedPrintServiceLookup.getStats());
         printers.putAll(true, printServices);
         if (withAttributes) {
             if(debug) log.debug("Fetching driver attributes for all printers...");
@@ -91,6 +113,15 @@ public class PrintServiceMatcher {
     }
 
     public static String findPrinterName(String query) throws JSONException {
+        PrinterSnapshot snapshot = PrinterSnapshot.getWarm();
+        if (snapshot != null) {
+            String name = snapshot.search(query);
+            if (name != null) {
+                refreshSnapshot();
+                return name;
+            }
+        }
+
         NativePrinter printer = PrintServiceMatcher.matchPrinter(query);
 
         if (printer != null) {
@@ -106,10 +137,6 @@ public class PrintServiceMatcher {
      * @param printerSearch Search query to compare against service names.
      */
     public static NativePrinter matchPrinter(String printerSearch, boolean silent) {
-        NativePrinter exact = null;
-        NativePrinter begins = null;
-        NativePrinter partial = null;
-
         if (!silent) { log.debug("Searching for PrintService matching {}", printerSearch); }
 
         // Fix for https://github.com/qzind/tray/issues/931
@@ -120,60 +147,13 @@ public class PrintServiceMatcher {
             return defaultPrinter;
         }
 
-        printerSearch = printerSearch.toLowerCase(Locale.ENGLISH);
-
-        // Search services for matches
-        for(NativePrinter printer : getNativePrinterList(silent).values()) {
-            if (printer.getName() == null) {
-                continue;
-            }
-            String printerName = printer.getName().toLowerCase(Locale.ENGLISH);
-            if (printerName.equals(printerSearch)) {
-                exact = printer;
-                break;
-            }
-            if (printerName.startsWith(printerSearch)) {
-                begins = printer;
-                continue;
-            }
-            if (printerName.contains(printerSearch)) {
-                partial = printer;
-                continue;
-            }
-
-            if (SystemUtilities.isMac()) {
-                // 1.9 compat: fallback for old style names
-                PrinterName name = printer.getLegacyName();
-                if (name == null || name.getValue() == null) { continue; }
-                printerName = name.getValue().toLowerCase(Locale.ENGLISH);
-                if (printerName.equals(printerSearch)) {
-                    exact = printer;
-                    continue;
-                }
-                if (printerName.startsWith(printerSearch)) {
-                    begins = printer;
-                    continue;
-                }
-                if (printerName.contains(printerSearch)) {
-                    partial = printer;
-                }
-            }
-        }
-
-        // Return closest match
-        NativePrinter use = null;
-        if (exact != null) {
-            use = exact;
-        } else if (begins != null) {
-            use = begins;
-        } else if (partial != null) {
-            use = partial;
-        }
+        // Closest match by exact name, then begins-with, then contains (indexed, remembered until the list changes)
+        NativePrinter use = getNativePrinterList(silent).search(printerSearch);
 
         if (use != null) {
             if(!silent) log.debug("Found match: {}", use.getPrintService().value().getName());
         } else {
-            log.warn("Printer not found: {}", printerSearch);
+            log.warn("Printer not found: {}", printerSearch.toLowerCase(Locale.ENGLISH));
         }
 
         return use;
@@ -184,90 +164,169 @@ public class PrintServiceMatcher {
     }
 
     public static JSONArray getPrintersJSON(boolean includeDetails) throws JSONException {
+        // right after a restart, answer from the last run's printers while they're listed again in the background
+        PrinterSnapshot snapshot = PrinterSnapshot.getWarm();
+        if (snapshot != null) {
+            refreshSnapshot();
+            return snapshot.getPrinters(includeDetails);
+        }
+
+        return listPrintersJSON(includeDetails);
+    }
+
+    /**
+     * Lists all printers and their details in the background and saves them for the next start, replacing any
+     * snapshot still being served.  Only one refresh runs at a time.
+     */
+    public static void refreshSnapshot() {
+        if (!snapshotRefreshing.compareAndSet(false, true)) {
+            return;
+        }
+
+        Thread refresh = new Thread(() -> {
+            try {
+                long start = System.currentTimeMillis();
+                JSONArray details = listPrintersJSON(true);
+
+                Map<String,List<PrinterResolution>> resolutions = new HashMap<>();
+                for(NativePrinter printer : getNativePrinterList(true).values()) {
+                    try {
+                        resolutions.put(printer.getName(), printer.getResolutions(false));
+                    }
+                    catch(RuntimeException e) {
+                        log.warn("Unable to list resolutions of '{}'", printer.getPrinterId(), e);
+                    }
+                }
+
+                PrinterSnapshot previous = PrinterSnapshot.getWarm();
+                PrinterSnapshot current = PrinterSnapshot.supersede(details, resolutions);
+                if (previous != null) {
+                    Set<String> added = new LinkedHashSet<>(current.getNames());
+                    added.removeAll(previous.getNames());
+                    Set<String> removed = new LinkedHashSet<>(previous.getNames());
+                    removed.removeAll(current.getNames());
+                    log.info("Printer snapshot replaced by live listing in {}ms, added: {}, removed: {}", System.currentTimeMillis() - start, added, removed);
+                } else {
+                    log.debug("Printer snapshot saved in {}ms", System.currentTimeMillis() - start);
+                }
+            }
+            catch(JSONException | RuntimeException e) {
+                log.warn("Unable to refresh the printer snapshot", e);
+                PrinterSnapshot.discard();
+            }
+            finally {
+                snapshotRefreshing.set(false);
+            }
+        }, "printer-snapshot");
+        refresh.setDaemon(true);
+        refresh.start();
+    }
+
+    private static JSONArray listPrintersJSON(boolean includeDetails) throws JSONException {
         JSONArray list = new JSONArray();
 
         PrintService defaultService = lookupDefaultPrintService();
 
-        boolean mediaTrayCrawled = false;
-
-        Collection<NativePrinter> nativePrinters = getNativePrinterList().values();
+        List<NativePrinter> nativePrinters = new ArrayList<>(getNativePrinterList().values());
         if(debug) log.debug("Iterating over all {} discovered printer(s)", nativePrinters.size());
 
-        for(NativePrinter printer : nativePrinters) {
-            if(debug) log.debug("Fetching driver details for '{}'...", printer.getPrinterId());
-            PrintService ps = printer.getPrintService().value();
+        // drivers are queried concurrently, each with its own deadline, and remembered between calls
+        List<JSONObject> details = includeDetails? printerDetails.get(nativePrinters):null;
+
+        for(int i = 0; i < nativePrinters.size(); i++) {
+            PrintService ps = nativePrinters.get(i).getPrintService().value();
             JSONObject jsonService = new JSONObject();
             jsonService.put("name", ps.getName());
 
             if (includeDetails) {
-                if(debug) log.debug("Fetching driver name and connection details for '{}'...", printer.getPrinterId());
-                jsonService.put("driver", printer.getDriver().value());
-                jsonService.put("connection", printer.getConnection());
+                JSONObject printerDetail = details.get(i);
+                copy(printerDetail, jsonService, "driver", "connection");
                 jsonService.put("default", ps == defaultService);
-                if(debug) log.debug("'{}': '{}' (Driver)", printer.getPrinterId(), printer.getDriver().value());
-                if(debug) log.debug("'{}': '{}' (Connection)", printer.getPrinterId(), printer.getConnection());
+                copy(printerDetail, jsonService, "trays", "sizes", "density", "error");
+            }
 
-                if (!mediaTrayCrawled) {
-                    log.info("Gathering printer MediaTray information for the first time...");
-                    mediaTrayCrawled = true;
-                }
+            list.put(jsonService);
+        }
 
-                HashSet<String> uniqueSizes = new HashSet<>(); // prevents duplicates
-                JSONArray trays = new JSONArray();
-                JSONArray sizes = new JSONArray();
+        return list;
+    }
 
-                if(debug) log.debug("Fetching MediaTrays and MediaSizes for '{}'...", printer.getPrinterId());
-                for(Media m : (Media[])ps.getSupportedAttributeValues(Media.class, null, null)) {
-                    if (m instanceof MediaTray) {
-                        if(debug) log.debug("'{}': '{}' (MediaTray)", printer.getPrinterId(), m.toString());
-                        trays.put(m.toString());
-                    }
-                    if (m instanceof MediaSizeName) {
-                        if(debug) log.debug("'{}': '{}' (MediaSizeName)", printer.getPrinterId(), m.toString());
-                        if(uniqueSizes.add(m.toString())) {
-                            MediaSize mediaSize = MediaSize.getMediaSizeForName((MediaSizeName)m);
-                            if(mediaSize == null) {
-                                continue;
-                            }
-
-                            JSONObject size = new JSONObject();
-                            size.put("name", m.toString());
-
-                            JSONObject in = new JSONObject();
-                            in.put("width", mediaSize.getX(MediaPrintableArea.INCH));
-                            in.put("height", mediaSize.getY(MediaPrintableArea.INCH));
-                            size.put("in", in);
-
-                            JSONObject mm = new JSONObject();
-                            mm.put("width", mediaSize.getX(MediaPrintableArea.MM));
-                            mm.put("height", mediaSize.getY(MediaPrintableArea.MM));
-                            size.put("mm", mm);
-
-                            sizes.put(size);
+    private static void copy(JSONObject from, JSONObject to, String... keys) throws JSONException {
+        for(String key : keys) {
+            if (from.has(key)) {
+                to.put(key, from.get(key));
+            }
+        }
+    }
+
+    /**
+     * Queries the driver, connection, media and resolution of a single printer.  Slow, and may block on a bad driver.
+     */
+    private static JSONObject gatherDetails(NativePrinter printer) {
+        try {
+            JSONObject jsonService = new JSONObject();
+
+            if(debug) log.debug("Fetching driver capabilities for '{}'...", printer.getPrinterId());
+            PrinterCapabilities capabilities = printer.getCapabilities();
+            jsonService.put("driver", capabilities.getDriver());
+            jsonService.put("connection", capabilities.getConnection());
+            if(debug) log.debug("'{}': '{}' (Driver)", printer.getPrinterId(), capabilities.getDriver());
+            if(debug) log.debug("'{}': '{}' (Connection)", printer.getPrinterId(), capabilities.getConnection());
+
+            HashSet<String> uniqueSizes = new HashSet<>(); // prevents duplicates
+            JSONArray trays = new JSONArray();
+            JSONArray sizes = new JSONArray();
+
+            for(Media m : capabilities.getMedia()) {
+                if (m instanceof MediaTray) {
+                    if(debug) log.debug("'{}': '{}' (MediaTray)", printer.getPrinterId(), m.toString());
+                    trays.put(m.toString());
+                }
+                if (m instanceof MediaSizeName) {
+                    if(debug) log.debug("'{}': '{}' (MediaSizeName)", printer.getPrinterId(), m.toString());
+                    if(uniqueSizes.add(m.toString())) {
+                        MediaSize mediaSize = MediaSize.getMediaSizeForName((MediaSizeName)m);
+                        if(mediaSize == null) {
+                            continue;
                         }
 
+                        JSONObject size = new JSONObject();
+                        size.put("name", m.toString());
+
+                        JSONObject in = new JSONObject();
+                        in.put("width", mediaSize.getX(MediaPrintableArea.INCH));
+                        in.put("height", mediaSize.getY(MediaPrintableArea.INCH));
+                        size.put("in", in);
+
+                        JSONObject mm = new JSONObject();
+                        mm.put("width", mediaSize.getX(MediaPrintableArea.MM));
+                        mm.put("height", mediaSize.getY(MediaPrintableArea.MM));
+                        size.put("mm", mm);
+
+                        sizes.put(size);
                     }
-                }
 
-                if(trays.length() > 0) {
-                    jsonService.put("trays", trays);
-                }
-                if(sizes.length() > 0) {
-                    jsonService.put("sizes", sizes);
                 }
+            }
 
-                if(debug) log.debug("Fetching PrinterResolution for '{}'...", printer.getPrinterId());
-                PrinterResolution res = printer.getResolution().value();
-                int density = -1; if (res != null) { density = res.getFeedResolution(ResolutionSyntax.DPI); }
-                jsonService.put("density", density);
-                if(debug) log.debug("'{}': {} (PrinterResolution)", printer.getPrinterId(), density);
-                if(debug) log.debug("Done fetching driver details for '{}'", printer.getPrinterId());
+            if(trays.length() > 0) {
+                jsonService.put("trays", trays);
+            }
+            if(sizes.length() > 0) {
+                jsonService.put("sizes", sizes);
             }
 
-            list.put(jsonService);
-        }
+            PrinterResolution res = capabilities.getDefaultResolution();
+            int density = -1; if (res != null) { density = res.getFeedResolution(ResolutionSyntax.DPI); }
+            jsonService.put("density", density);
+            if(debug) log.debug("'{}': {} (PrinterResolution)", printer.getPrinterId(), density);
+            if(debug) log.debug("Done fetching driver details for '{}'", printer.getPrinterId());
 
-        return list;
+            return jsonService;
+        }
+        catch(JSONException e) {
+            throw new IllegalStateException(e);
+        }
     }
 
 }
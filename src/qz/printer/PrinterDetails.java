@@ -0,0 +1,210 @@
+package qz.printer;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.codehaus.jettison.json.JSONException;
+import org.codehaus.jettison.json.JSONObject;
+import qz.printer.info.NativePrinter;
+
+import javax.print.PrintService;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Gathers the driver details of many printers at once on a bounded pool, giving each printer its own deadline so a
+ * single hung driver can't hold up the whole listing.
+ * <p/>
+ * Details are remembered per printer until its <code>PrintService</code> is replaced, {@link #invalidate()} is
+ * called, or they're older than the time-to-live.  Details gathered again for the same printer first drop the
+ * printer's capabilities, so the driver is really asked again.  A printer still being queried when its deadline passes is
+ * reported with an <code>error</code> instead of its details, and is not queried a second time while that query is
+ * still running.
+ */
+class PrinterDetails {
+    private static final Logger log = LogManager.getLogger(PrinterDetails.class);
+
+    static final long DEFAULT_TTL = 600000; // in milliseconds
+    private static final long POLL_INTERVAL = 50; // in milliseconds
+
+    private final Function<NativePrinter,JSONObject> gatherer;
+    private final ExecutorService pool;
+    private final int threads;
+    private volatile long timeout;
+    private volatile long ttl = DEFAULT_TTL;
+
+    private final ConcurrentHashMap<String,Entry> entries = new ConcurrentHashMap<>();
+    private final AtomicLong generation = new AtomicLong();
+
+    /**
+     * @param gatherer Queries a single printer's details; may block, may throw
+     * @param threads  Maximum number of printers queried at the same time
+     * @param timeout  Milliseconds to wait on a single printer, counted from when its query starts
+     */
+    PrinterDetails(Function<NativePrinter,JSONObject> gatherer, int threads, long timeout) {
+        this.gatherer = gatherer;
+        this.threads = Math.max(1, threads);
+        this.timeout = timeout;
+
+        AtomicInteger count = new AtomicInteger();
+        pool = Executors.newFixedThreadPool(this.threads, r -> {
+            Thread thread = new Thread(r, "printer-details-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    void setTimeout(long timeout) {
+        this.timeout = timeout;
+    }
+
+    void setTtl(long ttl) {
+        this.ttl = ttl;
+    }
+
+    /**
+     * Forgets all remembered details, queries already running are left to finish
+     */
+    void invalidate() {
+        generation.incrementAndGet();
+    }
+
+    /**
+     * Returns the details of each printer, in the same order, waiting no longer than each printer's deadline.
+     * Printers that didn't finish in time, or whose query failed, get an <code>error</code> value instead.
+     */
+    List<JSONObject> get(Collection<NativePrinter> printers) throws JSONException {
+        long start = System.currentTimeMillis();
+
+        List<Entry> pending = new ArrayList<>(printers.size());
+        int queried = 0;
+        for(NativePrinter printer : printers) {
+            Entry entry = lookup(printer);
+            if (entry.submitted.compareAndSet(false, true)) {
+                pool.execute(() -> entry.gather(gatherer));
+                queried++;
+            }
+            pending.add(entry);
+        }
+        if (queried > 0) {
+            log.debug("Querying driver details of {} of {} printer(s)", queried, printers.size());
+        }
+
+        // queued printers only start their clock once a thread is free, so the reply as a whole is capped too
+        long replyDeadline = start + timeout * ((queried + threads - 1) / threads + 1);
+
+        List<JSONObject> details = new ArrayList<>(pending.size());
+        for(Entry entry : pending) {
+            details.add(await(entry, replyDeadline));
+        }
+
+        return details;
+    }
+
+    private Entry lookup(NativePrinter printer) {
+        PrintService service = printer.getPrintService().value();
+        long current = generation.get();
+
+        return entries.compute(printer.getPrinterId(), (id, existing) -> {
+            if (existing != null && existing.isValid(printer, service, current, ttl)) {
+                return existing;
+            }
+            // the same printer would otherwise hand back the capabilities it already gathered
+            boolean refresh = existing != null && existing.printer == printer && existing.service == service;
+            return new Entry(printer, service, current, refresh);
+        });
+    }
+
+    private JSONObject await(Entry entry, long replyDeadline) throws JSONException {
+        long now;
+        long deadline;
+        while(!entry.details.isDone() && (now = System.currentTimeMillis()) < (deadline = entry.deadline(timeout, replyDeadline))) {
+            try {
+                entry.details.get(Math.min(deadline - now, POLL_INTERVAL), TimeUnit.MILLISECONDS);
+            }
+            catch(TimeoutException ignore) {}
+            catch(InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            catch(ExecutionException ignore) {
+                break; // reported below
+            }
+        }
+
+        if (entry.details.isDone()) {
+            try {
+                return entry.details.get();
+            }
+            catch(InterruptedException | ExecutionException e) {
+                Throwable cause = e.getCause() == null? e:e.getCause();
+                return new JSONObject().put("error", String.format("Unable to gather printer details: %s", cause));
+            }
+        }
+
+        log.warn("Timed out gathering driver details for '{}'", entry.printerId);
+        return new JSONObject().put("error", String.format("Timed out after %d ms gathering printer details", timeout));
+    }
+
+    private static class Entry {
+        final String printerId;
+        final NativePrinter printer;
+        final PrintService service;
+        final long generation;
+        final boolean refresh;
+
+        final AtomicBoolean submitted = new AtomicBoolean(false);
+        final CompletableFuture<JSONObject> details = new CompletableFuture<>();
+        volatile long started;
+        volatile long completed;
+
+        Entry(NativePrinter printer, PrintService service, long generation, boolean refresh) {
+            this.printerId = printer.getPrinterId();
+            this.printer = printer;
+            this.service = service;
+            this.generation = generation;
+            this.refresh = refresh;
+        }
+
+        void gather(Function<NativePrinter,JSONObject> gatherer) {
+            started = System.currentTimeMillis();
+            try {
+                if (refresh) {
+                    // on this worker, as it waits for a query of the printer that may still be running
+                    printer.invalidateCapabilities();
+                }
+                JSONObject json = gatherer.apply(printer);
+                completed = System.currentTimeMillis();
+                details.complete(json);
+            }
+            catch(Throwable t) {
+                log.warn("Failed to gather driver details for '{}'", printerId, t);
+                details.completeExceptionally(t);
+            }
+        }
+
+        /**
+         * @return When to stop waiting on this printer: its own deadline once started, otherwise the reply's
+         */
+        long deadline(long timeout, long replyDeadline) {
+            long begun = started;
+            return begun == 0? replyDeadline:Math.min(begun + timeout, replyDeadline);
+        }
+
+        boolean isValid(NativePrinter current, PrintService currentService, long currentGeneration, long ttl) {
+            if (printer != current || service != currentService) {
+                return false; // printer was re-added or its service replaced, its attributes may differ
+            }
+            if (!details.isDone()) {
+                return true; // still running, don't start a second query of the same driver
+            }
+            if (details.isCompletedExceptionally() || generation != currentGeneration) {
+                return false;
+            }
+            return System.currentTimeMillis() - completed < ttl;
+        }
+    }
+}
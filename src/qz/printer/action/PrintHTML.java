@@ -47,6 +47,7 @@ import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
 
 public class PrintHTML extends PrintImage implements PrintProcessor {
 
@@ -427,6 +428,14 @@ public class PrintHTML extends PrintImage implements PrintProcessor {
      */
     @Override
     public BufferedImage createBufferedImage(String data, JSONObject opt, PrintingUtilities.Flavor flavor, PrintOptions.Raw rawOpts, PrintOptions.Pixel pxlOpts) throws IOException {
+        return createBufferedImage(data, opt, flavor, rawOpts, pxlOpts, RasterType.COLOR);
+    }
+
+    /**
+     * Creates a raw-compatible BufferedImage, down scaling the snapshot directly to the requested raster depth
+     */
+    @Override
+    public BufferedImage createBufferedImage(String data, JSONObject opt, PrintingUtilities.Flavor flavor, PrintOptions.Raw rawOpts, PrintOptions.Pixel pxlOpts, RasterType rasterType) throws IOException {
         double density = (pxlOpts.getDensity() * pxlOpts.getUnits().as1Inch());
         if (density <= 1) {
             density = LanguageType.parse(opt.optString("language")).getDefaultDensity();
@@ -436,21 +445,13 @@ public class PrintHTML extends PrintImage implements PrintProcessor {
         double pageWidth = opt.optInt("pageWidth") / density * 72;
         double pageHeight = opt.optInt("pageHeight") / density * 72;
 
-        BufferedImage bi;
         data = loadHtml(data, flavor, rawOpts.getSrcEncoding());
         WebAppModel model = new WebAppModel(data, (flavor != PrintingUtilities.Flavor.FILE), pageWidth, pageHeight, false, pageZoom);
 
+        BufferedImage bi;
         try {
             WebApp.initialize(); //starts if not already started
-            bi = WebApp.raster(model);
-
-            // down scale back from web density
-            double scaleFactor = opt.optDouble("pageWidth", 0) / bi.getWidth();
-            BufferedImage scaled = new BufferedImage((int)(bi.getWidth() * scaleFactor), (int)(bi.getHeight() * scaleFactor), BufferedImage.TYPE_INT_ARGB);
-            Graphics2D g2d = scaled.createGraphics();
-            g2d.drawImage(bi, 0, 0, (int)(bi.getWidth() * scaleFactor), (int)(bi.getHeight() * scaleFactor), null);
-            g2d.dispose();
-            bi = scaled;
+            bi = rasterScaled(model, opt.optDouble("pageWidth", 0), rasterType);
         }
         catch(Throwable t) {
             if (model.getZoom() > 1 && t instanceof IllegalArgumentException) {
@@ -458,7 +459,7 @@ public class PrintHTML extends PrintImage implements PrintProcessor {
                 try {
                     log.warn("Capture failed with increased zoom, attempting with default value");
                     model.setZoom(1);
-                    bi = WebApp.raster(model);
+                    bi = rasterScaled(model, opt.optDouble("pageWidth", 0), rasterType);
                 }
                 catch(Throwable tt) {
                     log.error("Failed to capture html raster");
@@ -470,6 +471,35 @@ public class PrintHTML extends PrintImage implements PrintProcessor {
             }
         }
 
-        return bi;
+        return rasterType.convert(bi);
+    }
+
+    /**
+     * Down scales the snapshot back from web density as each strip is captured, so the full size page is never held in memory
+     *
+     * @param targetWidth Width to scale to, or {@code 0} to keep the width captured
+     */
+    private static BufferedImage rasterScaled(WebAppModel model, double targetWidth, RasterType rasterType) throws Throwable {
+        AtomicReference<BufferedImage> scaled = new AtomicReference<>();
+        AtomicReference<Graphics2D> g2d = new AtomicReference<>();
+        try {
+            WebApp.raster(model, (tile, y, width, height) -> {
+                if (scaled.get() == null) {
+                    // without a pageWidth to scale to, keep the captured size
+                    double scaleFactor = targetWidth > 0? targetWidth / width:1;
+                    int scaledWidth = (int)(width * scaleFactor), scaledHeight = (int)(height * scaleFactor);
+                    scaled.set(rasterType.createImage(scaledWidth, scaledHeight));
+                    g2d.set(scaled.get().createGraphics());
+                    // same mapping as drawing the whole page at once, so strips meet without seams
+                    g2d.get().scale((double)scaledWidth / width, (double)scaledHeight / height);
+                }
+                g2d.get().drawImage(tile, 0, y, null);
+            });
+        }
+        finally {
+            if (g2d.get() != null) { g2d.get().dispose(); }
+        }
+
+        return scaled.get();
     }
 }
@@ -24,6 +24,9 @@ import qz.utils.SystemUtilities;
 
 import javax.imageio.IIOException;
 import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
 import javax.print.attribute.PrintRequestAttributeSet;
 import javax.print.attribute.ResolutionSyntax;
 import javax.print.attribute.standard.MediaPrintableArea;
@@ -31,7 +34,7 @@ import javax.print.attribute.standard.OrientationRequested;
 import javax.print.attribute.standard.PrinterResolution;
 import java.awt.*;
 import java.awt.geom.Rectangle2D;
-import java.awt.image.BufferedImage;
+import java.awt.image.*;
 import java.awt.print.PageFormat;
 import java.awt.print.Printable;
 import java.awt.print.PrinterException;
@@ -39,8 +42,13 @@ import java.awt.print.PrinterJob;
 import java.io.ByteArrayInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.InputStream;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
 import java.util.List;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
 
 
 /**
@@ -51,6 +59,7 @@ public class PrintImage extends PrintPixel implements PrintProcessor, Printable
     private static final Logger log = LogManager.getLogger(PrintImage.class);
 
     protected List<BufferedImage> images;
+    private final TreeMap<Integer,PreparedImage> preparedImages = new TreeMap<>();
 
     protected double dpiScale = 1;
     protected boolean scaleImage = false;
@@ -70,7 +79,22 @@ public class PrintImage extends PrintPixel implements PrintProcessor, Printable
 
     @Override
     public void parseData(JSONArray printData, PrintOptions options) throws JSONException, UnsupportedOperationException {
-        dpiScale = (options.getPixelOptions().getDensity() * options.getPixelOptions().getUnits().as1Inch()) / 72.0;
+        PrintOptions.Pixel pxlOpts = options.getPixelOptions();
+        dpiScale = (pxlOpts.getDensity() * pxlOpts.getUnits().as1Inch()) / 72.0;
+
+        // scaled content never prints more pixels than the page holds, so don't decode more than that
+        int decodeLimit = 0;
+        if (pxlOpts.isScaleContent()) {
+            double pageEdge = 0; // in points
+            if (pxlOpts.getSize() != null) {
+                pageEdge = Math.max(pxlOpts.getSize().getWidth(), pxlOpts.getSize().getHeight()) * pxlOpts.getUnits().toInches() * 72.0;
+            }
+            if (pageEdge <= 0 && options.getDefaultOptions().getPageSize() != null) {
+                pageEdge = Math.max(options.getDefaultOptions().getPageSize().getWidth(), options.getDefaultOptions().getPageSize().getHeight());
+            }
+            decodeLimit = (int)Math.ceil(pageEdge * dpiScale);
+            log.trace("Limiting decoded images to {}x{} pixels", decodeLimit, decodeLimit);
+        }
 
         for(int i = 0; i < printData.length(); i++) {
             JSONObject data = printData.getJSONObject(i);
@@ -78,7 +102,7 @@ public class PrintImage extends PrintPixel implements PrintProcessor, Printable
             PrintingUtilities.Flavor flavor = PrintingUtilities.Flavor.parse(data, PrintingUtilities.Flavor.FILE);
 
             try {
-                images.add(loadImage(data.getString("data"), flavor));
+                images.add(loadImage(data.getString("data"), flavor, decodeLimit, decodeLimit, pxlOpts.getInterpolation()));
             }
             catch(IIOException e) {
                 if (e.getCause() != null && e.getCause() instanceof FileNotFoundException) {
@@ -95,7 +119,11 @@ public class PrintImage extends PrintPixel implements PrintProcessor, Printable
         log.debug("Parsed {} images for printing", images.size());
     }
 
-    private BufferedImage loadImage(String data, PrintingUtilities.Flavor flavor) throws IOException {
+    /**
+     * Loads the image, decoding no more pixels than needed to fit within {@code maxWidth} x {@code maxHeight}.
+     * A limit of {@code 0} or less leaves that dimension unbounded.
+     */
+    private static BufferedImage loadImage(String data, PrintingUtilities.Flavor flavor, int maxWidth, int maxHeight, Object interpolation) throws IOException {
         // 2.0 compatibility, base64 was inferred by URL pattern
         if (data.startsWith("data:image/") && data.contains(";base64,")) {
             String[] parts = data.split(";base64,");
@@ -107,10 +135,87 @@ public class PrintImage extends PrintPixel implements PrintProcessor, Printable
             case PLAIN:
                 // There's really no such thing as a 'PLAIN' image, assume it's a URL
             case FILE:
-                return ImageIO.read(ConnectionUtilities.getInputStream(data, true));
+                try(InputStream in = ConnectionUtilities.getInputStream(data, true)) {
+                    return readImage(in, maxWidth, maxHeight, interpolation);
+                }
             default:
-                return ImageIO.read(new ByteArrayInputStream(flavor.read(data)));
+                return readImage(new ByteArrayInputStream(flavor.read(data)), maxWidth, maxHeight, interpolation);
+        }
+    }
+
+    private static BufferedImage readImage(InputStream in, int maxWidth, int maxHeight, Object interpolation) throws IOException {
+        if (maxWidth <= 0 && maxHeight <= 0) {
+            return ImageIO.read(in);
+        }
+
+        try(ImageInputStream stream = ImageIO.createImageInputStream(in)) {
+            if (stream == null) { throw new IIOException("Can't create an ImageInputStream!"); }
+
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(stream);
+            if (!readers.hasNext()) { return null; }
+
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(stream, true, true);
+                double ratio = getFitRatio(reader.getWidth(0), reader.getHeight(0), maxWidth, maxHeight);
+
+                // skip source pixels while decoding, but keep twice the target so the downscale can still smooth
+                ImageReadParam param = reader.getDefaultReadParam();
+                int subsampling = (int)Math.floor(ratio / 2);
+                if (subsampling > 1) {
+                    log.debug("Decoding {}x{} image with x{} subsampling", reader.getWidth(0), reader.getHeight(0), subsampling);
+                    param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+                }
+                BufferedImage image = reader.read(0, param);
+
+                ratio = getFitRatio(image.getWidth(), image.getHeight(), maxWidth, maxHeight);
+                if (ratio > 1) {
+                    return downscale(image, Math.max(1, (int)Math.round(image.getWidth() / ratio)), Math.max(1, (int)Math.round(image.getHeight() / ratio)), interpolation);
+                }
+                return image;
+            }
+            finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /**
+     * @return How many times larger than the bounds the image is, {@code 1} or less if it already fits
+     */
+    private static double getFitRatio(int width, int height, int maxWidth, int maxHeight) {
+        double ratio = 0;
+        if (maxWidth > 0) { ratio = (double)width / maxWidth; }
+        if (maxHeight > 0) { ratio = Math.max(ratio, (double)height / maxHeight); }
+        return ratio;
+    }
+
+    /**
+     * Shrinks {@code image} to the specified size by repeated halving, which keeps the quality of a single
+     * bicubic pass without its cost.  Nearest-neighbor interpolation is honored in a single step to keep edges crisp.
+     */
+    private static BufferedImage downscale(BufferedImage image, int width, int height, Object interpolation) {
+        boolean nearest = interpolation == RenderingHints.VALUE_INTERPOLATION_NEAREST_NEIGHBOR;
+        int type = image.getTransparency() == Transparency.OPAQUE? BufferedImage.TYPE_INT_RGB:BufferedImage.TYPE_INT_ARGB;
+
+        BufferedImage result = image;
+        int w = image.getWidth(), h = image.getHeight();
+        do {
+            w = nearest? width:Math.max(width, w / 2);
+            h = nearest? height:Math.max(height, h / 2);
+
+            BufferedImage step = new BufferedImage(w, h, type);
+            Graphics2D g2d = step.createGraphics();
+            g2d.setRenderingHint(RenderingHints.KEY_INTERPOLATION, nearest? interpolation:RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g2d.drawImage(result, 0, 0, w, h, null);
+            g2d.dispose();
+
+            result = step;
         }
+        while(w != width || h != height);
+
+        log.debug("Downscaled image from {}x{} to {}x{}", image.getWidth(), image.getHeight(), width, height);
+        return result;
     }
 
     private List<BufferedImage> breakupOverPages(BufferedImage img, PageFormat page, PrintRequestAttributeSet attributes) {
@@ -223,10 +328,7 @@ public class PrintImage extends PrintPixel implements PrintProcessor, Printable
         //allows pages view to rotate in different orientations
         graphics.drawString(" ", 0, 0);
 
-        BufferedImage imgToPrint = fixColorModel(images.get(pageIndex));
-        if (imageRotation % 360 != 0) {
-            imgToPrint = rotate(imgToPrint, imageRotation);
-        }
+        BufferedImage imgToPrint = prepareImage(pageIndex, pageFormat);
 
         // apply image scaling
         double boundW = pageFormat.getImageableWidth();
@@ -236,8 +338,6 @@ public class PrintImage extends PrintPixel implements PrintProcessor, Printable
         double imgH = imgToPrint.getHeight() / dpiScale;
 
         if (scaleImage) {
-            imgToPrint = scale(imgToPrint, pageFormat);
-
             // adjust dimensions to smallest edge, keeping size ratio
             if (((float)imgToPrint.getWidth() / (float)imgToPrint.getHeight()) >= (boundW / boundH)) {
                 imgW = boundW;
@@ -273,6 +373,55 @@ public class PrintImage extends PrintPixel implements PrintProcessor, Printable
         return PAGE_EXISTS;
     }
 
+    /**
+     * Returns the color-fixed, rotated and scaled image for {@code pageIndex}.
+     * Java calls {@code print(...)} several times per page (banding, copies), so the result is kept until a later page is requested.
+     */
+    private BufferedImage prepareImage(int pageIndex, PageFormat pageFormat) {
+        PreparedImage prepared = preparedImages.get(pageIndex);
+        if (prepared != null && prepared.matches(pageFormat)) {
+            log.trace("Reusing prepared image for page {}", pageIndex);
+            return prepared.image;
+        }
+
+        // earlier pages have finished printing, release them
+        preparedImages.headMap(pageIndex).clear();
+
+        long start = System.nanoTime();
+        BufferedImage imgToPrint = fixColorModel(images.get(pageIndex));
+        if (imageRotation % 360 != 0) {
+            imgToPrint = rotate(imgToPrint, imageRotation);
+        }
+        if (scaleImage) {
+            imgToPrint = scale(imgToPrint, pageFormat);
+        }
+        log.debug("Prepared image for page {} in {}ms", pageIndex, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+
+        preparedImages.put(pageIndex, new PreparedImage(imgToPrint, pageFormat));
+        return imgToPrint;
+    }
+
+    /**
+     * A print-ready image, along with the page format it was prepared for
+     */
+    private static class PreparedImage {
+        final BufferedImage image;
+        final double width;
+        final double height;
+        final int orientation;
+
+        PreparedImage(BufferedImage image, PageFormat pageFormat) {
+            this.image = image;
+            this.width = pageFormat.getImageableWidth();
+            this.height = pageFormat.getImageableHeight();
+            this.orientation = pageFormat.getOrientation();
+        }
+
+        boolean matches(PageFormat pageFormat) {
+            return width == pageFormat.getImageableWidth() && height == pageFormat.getImageableHeight() && orientation == pageFormat.getOrientation();
+        }
+    }
+
     /**
      *
      * @param image
@@ -308,6 +457,18 @@ public class PrintImage extends PrintPixel implements PrintProcessor, Printable
      * @return Rotated image data
      */
     public static BufferedImage rotate(BufferedImage image, double angle, Object dithering, Object interpolation) {
+        if (angle % 90 == 0) {
+            BufferedImage rotated = rotateQuarters(image, angle);
+            if (rotated != null) { return rotated; }
+        }
+
+        return rotateGraphics(image, angle, dithering, interpolation);
+    }
+
+    /**
+     * Rotates {@code image} by drawing it through a rotated {@code Graphics2D}, supports any angle and image type.
+     */
+    static BufferedImage rotateGraphics(BufferedImage image, double angle, Object dithering, Object interpolation) {
         double rads = Math.toRadians(angle);
         double sin = Math.abs(Math.sin(rads)), cos = Math.abs(Math.cos(rads));
 
@@ -339,6 +500,201 @@ public class PrintImage extends PrintPixel implements PrintProcessor, Printable
         return result;
     }
 
+    /**
+     * Rotates {@code image} by a multiple of 90 degrees by moving raster samples directly.
+     * Pixels are placed exactly where {@link #rotateGraphics} would place them for the same rotation.
+     * <p>
+     * Int and interleaved byte color rasters produce {@code TYPE_INT_ARGB} with uncovered pixels transparent, as drawing would.
+     * Gray and 1-bit rasters keep their type, with uncovered pixels white.
+     *
+     * @param image BufferedImage to rotate
+     * @param angle Rotation angle in degrees, must be a multiple of 90
+     * @return Rotated image data, or {@code null} if the raster layout isn't supported
+     */
+    static BufferedImage rotateQuarters(BufferedImage image, double angle) {
+        switch(image.getType()) {
+            case BufferedImage.TYPE_INT_RGB:
+            case BufferedImage.TYPE_INT_ARGB:
+            case BufferedImage.TYPE_3BYTE_BGR:
+            case BufferedImage.TYPE_4BYTE_ABGR:
+            case BufferedImage.TYPE_BYTE_GRAY:
+                break;
+            case BufferedImage.TYPE_BYTE_BINARY:
+                if (image.getColorModel().getPixelSize() == 1) { break; }
+            default:
+                return null;
+        }
+
+        QuarterTurn turn = new QuarterTurn(image.getWidth(), image.getHeight(), angle);
+        WritableRaster srcRaster = image.getRaster();
+
+        switch(image.getType()) {
+            case BufferedImage.TYPE_INT_RGB:
+            case BufferedImage.TYPE_INT_ARGB: {
+                SinglePixelPackedSampleModel srcModel = (SinglePixelPackedSampleModel)srcRaster.getSampleModel();
+                int[] src = ((DataBufferInt)srcRaster.getDataBuffer()).getData();
+                int srcStride = srcModel.getScanlineStride();
+                int srcOffset = srcRaster.getDataBuffer().getOffset() - srcRaster.getSampleModelTranslateY() * srcStride - srcRaster.getSampleModelTranslateX();
+                boolean opaque = image.getType() == BufferedImage.TYPE_INT_RGB;
+
+                BufferedImage result = new BufferedImage(turn.width, turn.height, BufferedImage.TYPE_INT_ARGB);
+                int[] dest = ((DataBufferInt)result.getRaster().getDataBuffer()).getData();
+
+                for(int y = 0; y < turn.sHeight; y++) {
+                    int srcRow = srcOffset + y * srcStride;
+                    for(int x = 0; x < turn.sWidth; x++) {
+                        int dX = turn.x(x, y), dY = turn.y(x, y);
+                        if (turn.outside(dX, dY)) { continue; }
+
+                        int argb = src[srcRow + x];
+                        // fully transparent pixels are left untouched by drawing
+                        dest[dY * turn.width + dX] = opaque? argb | 0xFF000000:(argb >>> 24 == 0? 0:argb);
+                    }
+                }
+                return result;
+            }
+            case BufferedImage.TYPE_3BYTE_BGR:
+            case BufferedImage.TYPE_4BYTE_ABGR: {
+                PixelInterleavedSampleModel srcModel = (PixelInterleavedSampleModel)srcRaster.getSampleModel();
+                byte[] src = ((DataBufferByte)srcRaster.getDataBuffer()).getData();
+                int srcStride = srcModel.getScanlineStride(), pixelStride = srcModel.getPixelStride();
+                int srcOffset = srcRaster.getDataBuffer().getOffset() - srcRaster.getSampleModelTranslateY() * srcStride - srcRaster.getSampleModelTranslateX() * pixelStride;
+                int[] bands = srcModel.getBandOffsets(); // r, g, b(, a)
+                boolean opaque = image.getType() == BufferedImage.TYPE_3BYTE_BGR;
+
+                BufferedImage result = new BufferedImage(turn.width, turn.height, BufferedImage.TYPE_INT_ARGB);
+                int[] dest = ((DataBufferInt)result.getRaster().getDataBuffer()).getData();
+
+                for(int y = 0; y < turn.sHeight; y++) {
+                    int srcPixel = srcOffset + y * srcStride;
+                    for(int x = 0; x < turn.sWidth; x++, srcPixel += pixelStride) {
+                        int dX = turn.x(x, y), dY = turn.y(x, y);
+                        if (turn.outside(dX, dY)) { continue; }
+
+                        int alpha = opaque? 0xFF:src[srcPixel + bands[3]] & 0xFF;
+                        if (alpha == 0) { continue; }
+                        dest[dY * turn.width + dX] = alpha << 24 | (src[srcPixel + bands[0]] & 0xFF) << 16 | (src[srcPixel + bands[1]] & 0xFF) << 8 | (src[srcPixel + bands[2]] & 0xFF);
+                    }
+                }
+                return result;
+            }
+            case BufferedImage.TYPE_BYTE_GRAY: {
+                ComponentSampleModel srcModel = (ComponentSampleModel)srcRaster.getSampleModel();
+                byte[] src = ((DataBufferByte)srcRaster.getDataBuffer()).getData();
+                int srcStride = srcModel.getScanlineStride();
+                int srcOffset = srcRaster.getDataBuffer().getOffset() - srcRaster.getSampleModelTranslateY() * srcStride - srcRaster.getSampleModelTranslateX();
+
+                BufferedImage result = new BufferedImage(turn.width, turn.height, BufferedImage.TYPE_BYTE_GRAY);
+                byte[] dest = ((DataBufferByte)result.getRaster().getDataBuffer()).getData();
+                // uncovered pixels would be transparent from Graphics2D, which converters treat as white
+                Arrays.fill(dest, (byte)0xFF);
+
+                for(int y = 0; y < turn.sHeight; y++) {
+                    int srcRow = srcOffset + y * srcStride;
+                    for(int x = 0; x < turn.sWidth; x++) {
+                        int dX = turn.x(x, y), dY = turn.y(x, y);
+                        if (turn.outside(dX, dY)) { continue; }
+
+                        dest[dY * turn.width + dX] = src[srcRow + x];
+                    }
+                }
+                return result;
+            }
+            default: {
+                IndexColorModel cm = (IndexColorModel)image.getColorModel();
+                MultiPixelPackedSampleModel srcModel = (MultiPixelPackedSampleModel)srcRaster.getSampleModel();
+                byte[] src = ((DataBufferByte)srcRaster.getDataBuffer()).getData();
+                int srcStride = srcModel.getScanlineStride();
+                int srcOffset = srcRaster.getDataBuffer().getOffset() - srcRaster.getSampleModelTranslateY() * srcStride;
+                int srcBitOffset = srcModel.getDataBitOffset() - srcRaster.getSampleModelTranslateX();
+
+                BufferedImage result = new BufferedImage(turn.width, turn.height, BufferedImage.TYPE_BYTE_BINARY, cm);
+                byte[] dest = ((DataBufferByte)result.getRaster().getDataBuffer()).getData();
+                int destStride = ((MultiPixelPackedSampleModel)result.getRaster().getSampleModel()).getScanlineStride();
+
+                // uncovered pixels would be transparent from Graphics2D, which converters treat as white
+                if (cm.getRed(1) + cm.getGreen(1) + cm.getBlue(1) > cm.getRed(0) + cm.getGreen(0) + cm.getBlue(0)) {
+                    Arrays.fill(dest, (byte)0xFF);
+                }
+
+                for(int y = 0; y < turn.sHeight; y++) {
+                    int srcRow = srcOffset + y * srcStride;
+                    for(int x = 0; x < turn.sWidth; x++) {
+                        int dX = turn.x(x, y), dY = turn.y(x, y);
+                        if (turn.outside(dX, dY)) { continue; }
+
+                        int srcBit = srcBitOffset + x;
+                        int bit = (src[srcRow + (srcBit >> 3)] >> (7 - (srcBit & 7))) & 1;
+
+                        int destIndex = dY * destStride + (dX >> 3);
+                        int mask = 1 << (7 - (dX & 7));
+                        if (bit == 1) {
+                            dest[destIndex] |= (byte)mask;
+                        } else {
+                            dest[destIndex] &= (byte)~mask;
+                        }
+                    }
+                }
+                return result;
+            }
+        }
+    }
+
+    /**
+     * Maps source pixels to their destination for a quarter-turn rotation, using the same
+     * integer offsets as the {@code Graphics2D} translate/rotate in {@link #rotateGraphics}
+     */
+    private static class QuarterTurn {
+        final int sWidth, sHeight;
+        final int width, height;
+
+        // dX = x0 + xx * x + xy * y, dY = y0 + yx * x + yy * y
+        final int x0, xx, xy;
+        final int y0, yx, yy;
+
+        QuarterTurn(int sWidth, int sHeight, double angle) {
+            int quarters = (int)(((angle / 90) % 4 + 4) % 4);
+
+            this.sWidth = sWidth;
+            this.sHeight = sHeight;
+            width = quarters % 2 == 0? sWidth:sHeight;
+            height = quarters % 2 == 0? sHeight:sWidth;
+
+            int tX = (width - sWidth) / 2, tY = (height - sHeight) / 2;
+            int cX = sWidth / 2, cY = sHeight / 2;
+
+            switch(quarters) {
+                case 1:
+                    x0 = tX + cX + cY - 1; xx = 0; xy = -1;
+                    y0 = tY + cY - cX; yx = 1; yy = 0;
+                    break;
+                case 2:
+                    x0 = tX + 2 * cX - 1; xx = -1; xy = 0;
+                    y0 = tY + 2 * cY - 1; yx = 0; yy = -1;
+                    break;
+                case 3:
+                    x0 = tX + cX - cY; xx = 0; xy = 1;
+                    y0 = tY + cY + cX - 1; yx = -1; yy = 0;
+                    break;
+                default:
+                    x0 = 0; xx = 1; xy = 0;
+                    y0 = 0; yx = 0; yy = 1;
+            }
+        }
+
+        int x(int x, int y) {
+            return x0 + xx * x + xy * y;
+        }
+
+        int y(int x, int y) {
+            return y0 + yx * x + yy * y;
+        }
+
+        boolean outside(int dX, int dY) {
+            return dX < 0 || dY < 0 || dX >= width || dY >= height;
+        }
+    }
+
     private BufferedImage rotate(BufferedImage image, double angle) {
         return rotate(image, angle, dithering, interpolation);
     }
@@ -346,6 +702,7 @@ public class PrintImage extends PrintPixel implements PrintProcessor, Printable
     @Override
     public void cleanup() {
         images.clear();
+        preparedImages.clear();
 
         dpiScale = 1.0;
         scaleImage = false;
@@ -360,6 +717,7 @@ public class PrintImage extends PrintPixel implements PrintProcessor, Printable
      */
     @Override
     public BufferedImage createBufferedImage(String data, JSONObject opt, PrintingUtilities.Flavor flavor, PrintOptions.Raw rawOpts, PrintOptions.Pixel pxlOpts) throws IOException {
-        return loadImage(data, flavor);
+        // raw images print dot-for-pixel, pageWidth and pageHeight only apply to html and pdf
+        return loadImage(data, flavor, 0, 0, pxlOpts.getInterpolation());
     }
 }
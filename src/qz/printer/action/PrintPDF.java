@@ -4,7 +4,7 @@ import com.github.zafarkhaja.semver.Version;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.apache.pdfbox.io.IOUtils;
-import org.apache.pdfbox.multipdf.Splitter;
+import org.apache.pdfbox.io.MemoryUsageSetting;
 import org.apache.pdfbox.pdmodel.PDDocument;
 import org.apache.pdfbox.pdmodel.PDPage;
 import org.apache.pdfbox.pdmodel.PDPageContentStream;
@@ -12,20 +12,32 @@ import org.apache.pdfbox.pdmodel.common.PDRectangle;
 import org.apache.pdfbox.pdmodel.graphics.form.PDFormXObject;
 import org.apache.pdfbox.pdmodel.interactive.form.PDAcroForm;
 import org.apache.pdfbox.printing.Scaling;
+import org.apache.pdfbox.rendering.ImageType;
 import org.apache.pdfbox.rendering.PDFRenderer;
 import org.codehaus.jettison.json.JSONArray;
 import org.codehaus.jettison.json.JSONException;
 import org.codehaus.jettison.json.JSONObject;
+import qz.App;
 import qz.common.Constants;
 import qz.printer.PrintOptions;
 import qz.printer.PrintOutput;
 import qz.printer.action.pdf.BookBundle;
 import qz.printer.action.pdf.PDFWrapper;
+import qz.utils.ArgValue;
 import qz.utils.ConnectionUtilities;
+import qz.utils.PrefsSearch;
 import qz.utils.PrintingUtilities;
 import qz.utils.SystemUtilities;
 
+import javax.print.DocFlavor;
+import javax.print.PrintException;
+import javax.print.PrintService;
+import javax.print.SimpleDoc;
+import javax.print.attribute.Attribute;
+import javax.print.attribute.AttributeSet;
 import javax.print.attribute.PrintRequestAttributeSet;
+import javax.print.attribute.standard.Copies;
+import javax.print.attribute.standard.JobName;
 import javax.print.attribute.standard.Media;
 import javax.print.attribute.standard.MediaPrintableArea;
 import java.awt.*;
@@ -36,9 +48,11 @@ import java.awt.print.Paper;
 import java.awt.print.PrinterException;
 import java.awt.print.PrinterJob;
 import java.io.*;
-import java.util.ArrayList;
-import java.util.HashSet;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
 import java.util.List;
+import java.util.concurrent.*;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
@@ -46,20 +60,21 @@ public class PrintPDF extends PrintPixel implements PrintProcessor {
 
     private static final Logger log = LogManager.getLogger(PrintPDF.class);
 
+    private static final int MAX_RENDER_THREADS = 4;
+
     private final List<PDDocument> originals;
-    private final List<PDDocument> printables;
-    private final Splitter splitter;
+    private final LinkedHashMap<PDDocument,List<Integer>> printables; // selected page indices of each document
 
     private double docWidth = 0;
     private double docHeight = 0;
     private boolean ignoreTransparency = false;
     private boolean altFontRendering = false;
+    private boolean passthrough = false;
 
 
     public PrintPDF() {
         originals = new ArrayList<>();
-        printables = new ArrayList<>();
-        splitter = new Splitter();
+        printables = new LinkedHashMap<>();
     }
 
     @Override
@@ -88,29 +103,10 @@ public class PrintPDF extends PrintPixel implements PrintProcessor {
 
                 ignoreTransparency = dataOpt.optBoolean("ignoreTransparency", false);
                 altFontRendering = dataOpt.optBoolean("altFontRendering", false);
+                passthrough = dataOpt.optBoolean("passthrough", false);
 
                 if (!dataOpt.isNull("pageRanges")) {
-                    String[] ranges = dataOpt.optString("pageRanges", "").split(",");
-                    for(String range : ranges) {
-                        range = range.trim();
-                        if(range.isEmpty()) {
-                            continue;
-                        }
-                        String[] period = range.split("-");
-
-                        try {
-                            int start = Integer.parseInt(period[0]);
-                            pagesToPrint.add(start);
-
-                            if (period.length > 1) {
-                                int end = Integer.parseInt(period[period.length - 1]);
-                                pagesToPrint.addAll(IntStream.rangeClosed(start, end).boxed().collect(Collectors.toSet()));
-                            }
-                        }
-                        catch(NumberFormatException nfe) {
-                            log.warn("Unable to parse page range {}.", range);
-                        }
-                    }
+                    pagesToPrint.addAll(parsePageRanges(dataOpt.optString("pageRanges", "")));
                 }
             }
 
@@ -118,11 +114,21 @@ public class PrintPDF extends PrintPixel implements PrintProcessor {
 
             try {
                 PDDocument doc = loadPdf(data.getString("data"), flavor);
+                originals.add(doc);
+
+                // select pages by index only, pages left out of the range are never touched
+                List<Integer> selected = new ArrayList<>();
+                for(int pg = 0; pg < doc.getNumberOfPages(); pg++) {
+                    if (pagesToPrint.isEmpty() || pagesToPrint.contains(pg + 1)) { //ranges are 1-indexed
+                        selected.add(pg);
+                    }
+                }
 
                 if (pxlOpts.getBounds() != null) {
                     PrintOptions.Bounds bnd = pxlOpts.getBounds();
 
-                    for(PDPage page : doc.getPages()) {
+                    for(int pg : selected) {
+                        PDPage page = doc.getPage(pg);
                         PDRectangle box = new PDRectangle(
                                 (float)(bnd.getX() * convert),
                                 page.getMediaBox().getUpperRightY() - (float)((bnd.getHeight() + bnd.getY()) * convert),
@@ -132,19 +138,8 @@ public class PrintPDF extends PrintPixel implements PrintProcessor {
                     }
                 }
 
-                if (pagesToPrint.isEmpty()) {
-                    pagesToPrint.addAll(IntStream.rangeClosed(1, doc.getNumberOfPages()).boxed().collect(Collectors.toSet()));
-                }
-
-                originals.add(doc);
-
-                List<PDDocument> splitPages = splitter.split(doc);
-                originals.addAll(splitPages); //ensures non-ranged page will still get closed
-
-                for(int pg = 0; pg < splitPages.size(); pg++) {
-                    if (pagesToPrint.contains(pg + 1)) { //ranges are 1-indexed
-                        printables.add(splitPages.get(pg));
-                    }
+                if (!selected.isEmpty()) {
+                    printables.put(doc, selected);
                 }
             }
             catch(FileNotFoundException e) {
@@ -155,7 +150,35 @@ public class PrintPDF extends PrintPixel implements PrintProcessor {
             }
         }
 
-        log.debug("Parsed {} files for printing", printables.size());
+        log.debug("Parsed {} pages from {} files for printing", printables.values().stream().mapToInt(List::size).sum(), printables.size());
+    }
+
+    /**
+     * Parses a comma-separated list of 1-indexed page ranges, e.g. <code>"1,3-5"</code>
+     */
+    private static HashSet<Integer> parsePageRanges(String pageRanges) {
+        HashSet<Integer> pages = new HashSet<>();
+        for(String range : pageRanges.split(",")) {
+            range = range.trim();
+            if(range.isEmpty()) {
+                continue;
+            }
+            String[] period = range.split("-");
+
+            try {
+                int start = Integer.parseInt(period[0]);
+                pages.add(start);
+
+                if (period.length > 1) {
+                    int end = Integer.parseInt(period[period.length - 1]);
+                    pages.addAll(IntStream.rangeClosed(start, end).boxed().collect(Collectors.toSet()));
+                }
+            }
+            catch(NumberFormatException nfe) {
+                log.warn("Unable to parse page range {}.", range);
+            }
+        }
+        return pages;
     }
 
     public static PDDocument loadPdf(String data, PrintingUtilities.Flavor flavor) throws IOException {
@@ -163,12 +186,27 @@ public class PrintPDF extends PrintPixel implements PrintProcessor {
             case PLAIN:
                 // There's really no such thing as a 'PLAIN' PDF, assume it's a URL
             case FILE:
-                return refreshAcroForm(PDDocument.load(ConnectionUtilities.getInputStream(data, true)));
+                // read local files in place rather than buffering them through a stream
+                File local = ConnectionUtilities.getLocalFile(data, true);
+                if (local != null) {
+                    return refreshAcroForm(PDDocument.load(local, getMemoryUsageSetting()));
+                }
+                try(InputStream in = ConnectionUtilities.getInputStream(data, true)) {
+                    return refreshAcroForm(PDDocument.load(in, getMemoryUsageSetting()));
+                }
             default:
-                return refreshAcroForm(PDDocument.load(new ByteArrayInputStream(flavor.read(data))));
+                return refreshAcroForm(PDDocument.load(flavor.read(data), null, null, null, getMemoryUsageSetting()));
         }
     }
 
+    /**
+     * Buffers documents in main memory up to the configured limit, spilling anything larger to temporary scratch files
+     */
+    private static MemoryUsageSetting getMemoryUsageSetting() {
+        long maxMainMemory = Math.max(1, PrefsSearch.getInt(ArgValue.PRINT_PDF_MEMORY, App.getTrayProperties())) * 1024L * 1024L;
+        return MemoryUsageSetting.setupMixed(maxMainMemory);
+    }
+
     /**
      * Show annotations by forcing the refresh of acro forms per #1481
      */
@@ -189,10 +227,120 @@ public class PrintPDF extends PrintPixel implements PrintProcessor {
      */
     @Override
     public BufferedImage createBufferedImage(String data, JSONObject opt, PrintingUtilities.Flavor flavor, PrintOptions.Raw rawOpts, PrintOptions.Pixel pxlOpts) throws IOException {
-        PDDocument doc = loadPdf(data, flavor);
+        return createBufferedImage(data, opt, flavor, rawOpts, pxlOpts, RasterType.COLOR);
+    }
 
+    /**
+     * Creates a raw-compatible BufferedImage, rendering directly at the requested raster depth
+     */
+    @Override
+    public BufferedImage createBufferedImage(String data, JSONObject opt, PrintingUtilities.Flavor flavor, PrintOptions.Raw rawOpts, PrintOptions.Pixel pxlOpts, RasterType rasterType) throws IOException {
+        try(PDDocument doc = loadPdf(data, flavor)) {
+            return renderPage(doc, 0, opt, rasterType);
+        }
+    }
+
+    /**
+     * Creates raw-compatible BufferedImages for each page selected by <code>pageRanges</code>.
+     * Pages are rasterized concurrently, each worker thread rendering from its own copy of the document,
+     * and are handed to <code>pageHandler</code> in their original order.
+     */
+    @Override
+    public void createBufferedImages(String data, JSONObject opt, PrintingUtilities.Flavor flavor, PrintOptions.Raw rawOpts, PrintOptions.Pixel pxlOpts, RasterType rasterType, PageHandler pageHandler) throws IOException {
+        // workers each need their own document, so make sure the PDF can be re-read from disk
+        File source = null;
+        if (flavor == PrintingUtilities.Flavor.FILE || flavor == PrintingUtilities.Flavor.PLAIN) {
+            source = ConnectionUtilities.getLocalFile(data, true);
+        }
+        boolean spilled = source == null;
+        if (spilled) {
+            source = spillToFile(data, flavor);
+        }
+
+        try {
+            renderPages(source, opt, rasterType, pageHandler);
+        }
+        finally {
+            if (spilled && !source.delete()) {
+                source.deleteOnExit();
+            }
+        }
+    }
+
+    private static void renderPages(File source, JSONObject opt, RasterType rasterType, PageHandler pageHandler) throws IOException {
+        List<Integer> pages = new ArrayList<>();
+        try(PDDocument doc = refreshAcroForm(PDDocument.load(source, getMemoryUsageSetting()))) {
+            HashSet<Integer> pagesToPrint = parsePageRanges(opt.optString("pageRanges", ""));
+            for(int pg = 0; pg < doc.getNumberOfPages(); pg++) {
+                if (pagesToPrint.isEmpty() || pagesToPrint.contains(pg + 1)) { //ranges are 1-indexed
+                    pages.add(pg);
+                }
+            }
+
+            if (pages.size() <= 1) {
+                for(int pg : pages) {
+                    pageHandler.accept(renderPage(doc, pg, opt, rasterType));
+                }
+                return;
+            }
+        }
+
+        int threads = Math.min(pages.size(), Math.min(MAX_RENDER_THREADS, Runtime.getRuntime().availableProcessors()));
+        log.debug("Rendering {} PDF pages across {} threads", pages.size(), threads);
+
+        // PDFBox documents aren't thread safe, give each worker its own copy
+        List<PDDocument> workerDocs = Collections.synchronizedList(new ArrayList<>());
+        ThreadLocal<PDDocument> workerDoc = ThreadLocal.withInitial(() -> {
+            try {
+                PDDocument doc = refreshAcroForm(PDDocument.load(source, getMemoryUsageSetting()));
+                workerDocs.add(doc);
+                return doc;
+            }
+            catch(IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            // only keep a few pages ahead of the handler so finished rasters don't pile up in memory
+            ArrayDeque<Future<BufferedImage>> pending = new ArrayDeque<>();
+            int next = 0;
+            while(next < pages.size() || !pending.isEmpty()) {
+                while(next < pages.size() && pending.size() < threads * 2) {
+                    int pg = pages.get(next++);
+                    pending.add(pool.submit(() -> renderPage(workerDoc.get(), pg, opt, rasterType)));
+                }
+                pageHandler.accept(awaitPage(pending.poll()));
+            }
+        }
+        finally {
+            pool.shutdownNow();
+            try { pool.awaitTermination(30, TimeUnit.SECONDS); } catch(InterruptedException ignore) {}
+            for(PDDocument doc : workerDocs) {
+                try { doc.close(); } catch(IOException ignore) {}
+            }
+        }
+    }
+
+    private static BufferedImage awaitPage(Future<BufferedImage> page) throws IOException {
+        try {
+            return page.get();
+        }
+        catch(ExecutionException e) {
+            Throwable cause = e.getCause() instanceof UncheckedIOException? e.getCause().getCause():e.getCause();
+            if (cause instanceof IOException) { throw (IOException)cause; }
+            throw new IOException(cause);
+        }
+        catch(InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while rendering PDF pages", e);
+        }
+    }
+
+    private static BufferedImage renderPage(PDDocument doc, int pageIndex, JSONObject opt, RasterType rasterType) throws IOException {
         double scale;
-        PDRectangle rect = doc.getPage(0).getBBox();
+        PDRectangle rect = doc.getPage(pageIndex).getBBox();
         double pw = opt.optDouble("pageWidth", 0), ph = opt.optDouble("pageHeight", 0);
         if (ph <= 0 || (pw > 0 && (rect.getWidth() / rect.getHeight()) >= (pw / ph))) {
             scale = pw / rect.getWidth();
@@ -201,7 +349,44 @@ public class PrintPDF extends PrintPixel implements PrintProcessor {
         }
         if (scale <= 0) { scale = 1.0; }
 
-        return new PDFRenderer(doc).renderImage(0, (float)scale);
+        return new PDFRenderer(doc).renderImage(pageIndex, (float)scale, toImageType(rasterType));
+    }
+
+    /**
+     * Writes remote or encoded PDF data to a temporary file
+     */
+    private static File spillToFile(String data, PrintingUtilities.Flavor flavor) throws IOException {
+        File temp = File.createTempFile("qz_pdf_", ".pdf");
+        try {
+            switch(flavor) {
+                case PLAIN:
+                    // There's really no such thing as a 'PLAIN' PDF, assume it's a URL
+                case FILE:
+                    try(InputStream in = ConnectionUtilities.getInputStream(data, true)) {
+                        Files.copy(in, temp.toPath(), StandardCopyOption.REPLACE_EXISTING);
+                    }
+                    break;
+                default:
+                    Files.write(temp.toPath(), flavor.read(data));
+            }
+        }
+        catch(IOException e) {
+            if (!temp.delete()) { temp.deleteOnExit(); }
+            throw e;
+        }
+        return temp;
+    }
+
+    private static ImageType toImageType(RasterType rasterType) {
+        switch(rasterType) {
+            case GRAY:
+                return ImageType.GRAY;
+            case BINARY:
+                return ImageType.BINARY;
+            case COLOR:
+            default:
+                return ImageType.RGB;
+        }
     }
 
     @Override
@@ -221,13 +406,23 @@ public class PrintPDF extends PrintPixel implements PrintProcessor {
             return;
         }
 
+        PrintOptions.Pixel pxlOpts = options.getPixelOptions();
+
+        if (passthrough) {
+            String reason = findPassthroughBlocker(output.getPrintService(), pxlOpts);
+            if (reason == null) {
+                printPassthrough(output.getPrintService(), pxlOpts);
+                return;
+            }
+            log.info("Rendering PDF locally, {}", reason);
+        }
+
         PrinterJob job = PrinterJob.getPrinterJob();
         job.setPrintService(output.getPrintService());
 
-        PrintOptions.Pixel pxlOpts = options.getPixelOptions();
         Scaling scale = (pxlOpts.isScaleContent()? Scaling.SCALE_TO_FIT:Scaling.ACTUAL_SIZE);
 
-        PrintRequestAttributeSet attributes = applyDefaultSettings(pxlOpts, job.getPageFormat(null), (Media[])output.getPrintService().getSupportedAttributeValues(Media.class, null, null));
+        PrintRequestAttributeSet attributes = applyDefaultSettings(pxlOpts, job.getPageFormat(null), output.getSupportedMedia());
 
         // Disable attributes per https://github.com/qzind/tray/issues/174
         if (SystemUtilities.isMac() && Constants.JAVA_VERSION.compareWithBuildsTo(Version.valueOf("1.8.0+202")) < 0) {
@@ -248,29 +443,39 @@ public class PrintPDF extends PrintPixel implements PrintProcessor {
             }
         }
 
+        if (docWidth > 0 || docHeight > 0) {
+            scale = Scaling.SCALE_TO_FIT; //to get custom size we need to force scaling
+        }
+
         BookBundle bundle = new BookBundle();
 
-        for(PDDocument doc : printables) {
-            PageFormat page = job.getPageFormat(null);
-            applyDefaultSettings(pxlOpts, page, output.getSupportedMedia());
+        for(Map.Entry<PDDocument,List<Integer>> printable : printables.entrySet()) {
+            PDDocument doc = printable.getKey();
 
-            //trick pdfbox into an alternate doc size if specified
-            if (docWidth > 0 || docHeight > 0) {
-                Paper paper = page.getPaper();
+            // one wrapper per document, so pages share the renderer's resource caches
+            PDFWrapper wrapper = new PDFWrapper(doc, scale, false, ignoreTransparency, altFontRendering,
+                                                (float)(useDensity * pxlOpts.getUnits().as1Inch()),
+                                                false, pxlOpts.getOrientation(), hints);
 
-                if (docWidth <= 0) { docWidth = page.getImageableWidth(); }
-                if (docHeight <= 0) { docHeight = page.getImageableHeight(); }
+            for(int pg : printable.getValue()) {
+                PDPage pd = doc.getPage(pg);
+                PageFormat page = job.getPageFormat(null);
+                applyDefaultSettings(pxlOpts, page, output.getSupportedMedia());
 
-                paper.setImageableArea(paper.getImageableX(), paper.getImageableY(), docWidth, docHeight);
-                page.setPaper(paper);
+                //trick pdfbox into an alternate doc size if specified
+                if (docWidth > 0 || docHeight > 0) {
+                    Paper paper = page.getPaper();
 
-                scale = Scaling.SCALE_TO_FIT; //to get custom size we need to force scaling
+                    if (docWidth <= 0) { docWidth = page.getImageableWidth(); }
+                    if (docHeight <= 0) { docHeight = page.getImageableHeight(); }
 
-                //pdf uses imageable area from Paper, so this can be safely removed
-                attributes.remove(MediaPrintableArea.class);
-            }
+                    paper.setImageableArea(paper.getImageableX(), paper.getImageableY(), docWidth, docHeight);
+                    page.setPaper(paper);
+
+                    //pdf uses imageable area from Paper, so this can be safely removed
+                    attributes.remove(MediaPrintableArea.class);
+                }
 
-            for(PDPage pd : doc.getPages()) {
                 if (pxlOpts.getRotation() % 360 != 0) {
                     rotatePage(doc, pd, pxlOpts.getRotation());
                 }
@@ -292,13 +497,9 @@ public class PrintPDF extends PrintPixel implements PrintProcessor {
                         pd.setRotation(pd.getRotation() + 180);
                     }
                 }
-            }
 
-            PDFWrapper wrapper = new PDFWrapper(doc, scale, false, ignoreTransparency, altFontRendering,
-                                                (float)(useDensity * pxlOpts.getUnits().as1Inch()),
-                                                false, pxlOpts.getOrientation(), hints);
-
-            bundle.append(wrapper, page, doc.getNumberOfPages());
+                bundle.append(wrapper.forPage(pg), page);
+            }
         }
 
         if (pxlOpts.getSpoolSize() > 0 && bundle.getNumberOfPages() > pxlOpts.getSpoolSize()) {
@@ -320,6 +521,111 @@ public class PrintPDF extends PrintPixel implements PrintProcessor {
         }
     }
 
+    /**
+     * @return Why the documents can't be sent to {@code service} as they are, or {@code null} if they can
+     */
+    String findPassthroughBlocker(PrintService service, PrintOptions.Pixel pxlOpts) {
+        if (!service.isDocFlavorSupported(DocFlavor.INPUT_STREAM.PDF)) {
+            return "printer does not accept PDF documents";
+        }
+        if (ignoreTransparency || altFontRendering) {
+            return "requested font or transparency handling needs local rendering";
+        }
+        if (docWidth > 0 || docHeight > 0 || pxlOpts.getSize() != null) {
+            return "custom page sizes need local rendering";
+        }
+        PrintOptions.Margins margins = pxlOpts.getMargins();
+        if (margins.top() != 0 || margins.right() != 0 || margins.bottom() != 0 || margins.left() != 0) {
+            return "margins need local rendering";
+        }
+        if (!pxlOpts.isScaleContent()) {
+            return "actual size printing needs local rendering";
+        }
+        if (pxlOpts.getSpoolSize() > 0) {
+            return "spool size needs local rendering";
+        }
+
+        return null;
+    }
+
+    /**
+     * Sends the selected pages of each document straight to {@code service}, leaving all rendering to the printer
+     */
+    void printPassthrough(PrintService service, PrintOptions.Pixel pxlOpts) throws PrinterException {
+        PrintRequestAttributeSet attributes = applyDefaultSettings(pxlOpts, new PageFormat(), (Media[])service.getSupportedAttributeValues(Media.class, null, null));
+        // the printer lays out each page on its own media
+        attributes.remove(MediaPrintableArea.class);
+        attributes.add(new JobName(pxlOpts.getJobName(Constants.PDF_PRINT), Locale.getDefault()));
+
+        AttributeSet unsupported = service.getUnsupportedAttributes(DocFlavor.INPUT_STREAM.PDF, attributes);
+        if (unsupported != null) {
+            for(Attribute attribute : unsupported.toArray()) {
+                log.debug("Printer does not support {} for PDF documents, skipping", attribute.getName());
+                attributes.remove(attribute);
+            }
+        }
+
+        int jobCopies = 1;
+        if (pxlOpts.getCopies() > 1) {
+            Copies copies = new Copies(pxlOpts.getCopies());
+            if (service.isAttributeValueSupported(copies, DocFlavor.INPUT_STREAM.PDF, attributes)) {
+                attributes.add(copies);
+            } else {
+                jobCopies = pxlOpts.getCopies();
+            }
+        }
+
+        log.info("Sending PDF to printer without rendering ({} copies)", pxlOpts.getCopies());
+
+        for(Map.Entry<PDDocument,List<Integer>> printable : printables.entrySet()) {
+            File spool = null;
+            try {
+                spool = File.createTempFile("qz-pdf-", ".pdf");
+                writeSelection(printable.getKey(), printable.getValue(), spool, pxlOpts.getRotation());
+                log.debug("Spooling {} pages as {} bytes", printable.getValue().size(), spool.length());
+
+                for(int i = 0; i < jobCopies; i++) {
+                    try(InputStream in = new FileInputStream(spool)) {
+                        PrintRaw.waitForPrint(service.createPrintJob(), new SimpleDoc(in, DocFlavor.INPUT_STREAM.PDF, null), attributes);
+                    }
+                }
+            }
+            catch(IOException | PrintException e) {
+                PrinterException pe = new PrinterException(e.getLocalizedMessage());
+                pe.initCause(e);
+                throw pe;
+            }
+            finally {
+                if (spool != null && !spool.delete()) {
+                    spool.deleteOnExit();
+                }
+            }
+        }
+    }
+
+    /**
+     * Saves the {@code pages} of {@code doc} to {@code file}, copying them to a new document only when some are left out
+     */
+    private void writeSelection(PDDocument doc, List<Integer> pages, File file, double rotation) throws IOException {
+        if (rotation % 360 != 0) {
+            for(int pg : pages) {
+                rotatePage(doc, doc.getPage(pg), rotation);
+            }
+        }
+
+        if (pages.size() == doc.getNumberOfPages()) {
+            doc.save(file);
+            return;
+        }
+
+        try(PDDocument selection = new PDDocument()) {
+            for(int pg : pages) {
+                selection.importPage(doc.getPage(pg));
+            }
+            selection.save(file);
+        }
+    }
+
     private void rotatePage(PDDocument doc, PDPage page, double rotation) {
         try {
             //copy page to object for manipulation
@@ -363,5 +669,6 @@ public class PrintPDF extends PrintPixel implements PrintProcessor {
         docHeight = 0;
         ignoreTransparency = false;
         altFontRendering = false;
+        passthrough = false;
     }
 }
@@ -35,11 +35,96 @@ public abstract class PrintPixel {
 
     private static final List<Integer> MAC_BAD_IMAGE_TYPES = Arrays.asList(BufferedImage.TYPE_BYTE_BINARY, BufferedImage.TYPE_CUSTOM);
 
+    /**
+     * Pixel depth of the images handed to raw image converters
+     */
+    public enum RasterType {
+        COLOR(BufferedImage.TYPE_INT_ARGB), // full color, required by color converters (e.g. Evolis)
+        GRAY(BufferedImage.TYPE_BYTE_GRAY), // one byte per pixel
+        BINARY(BufferedImage.TYPE_BYTE_BINARY); // one bit per pixel, thresholded by the renderer
+
+        private final int imageType;
+
+        RasterType(int imageType) {
+            this.imageType = imageType;
+        }
+
+        public int getImageType() {
+            return imageType;
+        }
+
+        /**
+         * Parses the raster type from String <code>input</code>, falling back to
+         * <code>defaultVal</code> if <code>null</code> was provided or if no match is found.
+         */
+        public static RasterType parse(String input, RasterType defaultVal) {
+            for(RasterType rasterType : RasterType.values()) {
+                if (rasterType.name().equalsIgnoreCase(input)) {
+                    return rasterType;
+                }
+            }
+            return defaultVal;
+        }
+
+        /**
+         * Creates a blank image of this type, initialized to white for reduced depths
+         */
+        public BufferedImage createImage(int width, int height) {
+            BufferedImage image = new BufferedImage(width, height, imageType);
+            if (this != COLOR) {
+                Graphics2D g2d = image.createGraphics();
+                g2d.setColor(Color.WHITE);
+                g2d.fillRect(0, 0, width, height);
+                g2d.dispose();
+            }
+            return image;
+        }
+
+        /**
+         * Redraws <code>image</code> at this raster depth, returning it untouched if no conversion is needed
+         */
+        public BufferedImage convert(BufferedImage image) {
+            if (this == COLOR || image.getType() == imageType) {
+                return image;
+            }
+
+            BufferedImage converted = createImage(image.getWidth(), image.getHeight());
+            Graphics2D g2d = converted.createGraphics();
+            g2d.drawImage(image, 0, 0, null);
+            g2d.dispose();
+            return converted;
+        }
+    }
+
+    /**
+     * Receives each rendered page of a multi-page raw conversion, in page order
+     */
+    @FunctionalInterface
+    public interface PageHandler {
+        void accept(BufferedImage page) throws IOException;
+    }
+
     /**
      * PrintRaw requires all <code>Format</code>s to support conversion to a buffered image
      */
     public abstract BufferedImage createBufferedImage(String data, JSONObject opt, PrintingUtilities.Flavor flavor, PrintOptions.Raw rawOpts, PrintOptions.Pixel pxlOpts) throws IOException;
 
+    /**
+     * Creates a raw-compatible BufferedImage at the requested raster depth.
+     * <code>Format</code>s able to render at a reduced depth directly should override this to avoid the full color intermediate.
+     */
+    public BufferedImage createBufferedImage(String data, JSONObject opt, PrintingUtilities.Flavor flavor, PrintOptions.Raw rawOpts, PrintOptions.Pixel pxlOpts, RasterType rasterType) throws IOException {
+        return rasterType.convert(createBufferedImage(data, opt, flavor, rawOpts, pxlOpts));
+    }
+
+    /**
+     * Creates raw-compatible BufferedImages for every page of the data, passing each to <code>pageHandler</code> in order.
+     * Single page <code>Format</code>s produce exactly one image.
+     */
+    public void createBufferedImages(String data, JSONObject opt, PrintingUtilities.Flavor flavor, PrintOptions.Raw rawOpts, PrintOptions.Pixel pxlOpts, RasterType rasterType, PageHandler pageHandler) throws IOException {
+        pageHandler.accept(createBufferedImage(data, opt, flavor, rawOpts, pxlOpts, rasterType));
+    }
+
     protected PrintRequestAttributeSet applyDefaultSettings(PrintOptions.Pixel pxlOpts, PageFormat page, Media[] supported) {
         PrintRequestAttributeSet attributes = new HashPrintRequestAttributeSet();
 
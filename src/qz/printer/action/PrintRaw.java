@@ -17,10 +17,12 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import qz.common.ByteArrayBuilder;
 import qz.common.Constants;
+import qz.exception.InvalidRawImageException;
 import qz.exception.NullCommandException;
 import qz.exception.NullPrintServiceException;
 import qz.printer.action.raw.ImageConverter;
 import qz.printer.action.raw.LanguageType;
+import qz.printer.action.raw.MonoImageConverter;
 import qz.printer.PrintOptions;
 import qz.printer.PrintOutput;
 import qz.printer.info.NativePrinter;
@@ -107,14 +109,38 @@ public class PrintRaw implements PrintProcessor {
                     case HTML:
                     case IMAGE:
                     case PDF:
-                        BufferedImage orig = format.newBiCreator().createBufferedImage(cmd, opt, flavor, rawOpts, pxlOpts);
-                        BufferedImage oriented = applyOrientation(orig, pxlOpts);
+                        LanguageType languageType = LanguageType.parse(opt.optString("language"));
+                        PrintPixel.RasterType rasterType = PrintPixel.RasterType.COLOR;
+                        if (languageType.isMonochrome()) {
+                            // mono converters may opt into rendering straight to a gray or 1-bit raster
+                            rasterType = PrintPixel.RasterType.parse(opt.optString("rasterType"), PrintPixel.RasterType.COLOR);
+                            if (rasterType != PrintPixel.RasterType.COLOR
+                                    && MonoImageConverter.Quantization.parse(opt.optString("quantization"), null) == MonoImageConverter.Quantization.ALPHA) {
+                                // gray and binary rasters are opaque, alpha quantization needs the color raster's transparency
+                                log.warn("Raster type {} has no alpha channel to quantize, rendering in color instead", rasterType);
+                                rasterType = PrintPixel.RasterType.COLOR;
+                            }
+                        }
+
+                        final JSONObject imageOpt = opt;
+                        // callers frame the image data themselves unless they ask for each page to be wrapped
+                        final boolean wrapPages = opt.optBoolean("wrapPages", false);
+                        format.newBiCreator().createBufferedImages(cmd, opt, flavor, rawOpts, pxlOpts, rasterType, orig -> {
+                            BufferedImage oriented = applyOrientation(orig, pxlOpts);
 
-                        // Uncomment to write the BufferedImage to disk
-                        // ImageIO.write(oriented, "png", new File(String.format("format-%s-%s-%s.png", format.slug(), pxlOpts.getOrientation().slug(), flavor.toString().toLowerCase(Locale.ENGLISH))));
+                            // Uncomment to write the BufferedImage to disk
+                            // ImageIO.write(oriented, "png", new File(String.format("format-%s-%s-%s.png", format.slug(), pxlOpts.getOrientation().slug(), flavor.toString().toLowerCase(Locale.ENGLISH))));
 
-                        ImageConverter converter = LanguageType.parse(opt.optString("language")).newImageConverter(oriented, opt);
-                        converter.appendTo(commands);
+                            ImageConverter converter = languageType.newImageConverter(oriented, imageOpt);
+                            try {
+                                if (wrapPages) { commands.append(converter.getHeader()); }
+                                converter.appendTo(commands);
+                                if (wrapPages) { commands.append(converter.getFooter()); }
+                            }
+                            catch(InvalidRawImageException e) {
+                                throw new IOException(e.getMessage(), e);
+                            }
+                        });
                         break;
                     default:
                         throw new Exception(); // deliberately throw
@@ -274,7 +300,7 @@ public class PrintRaw implements PrintProcessor {
         waitForPrint(printJob, doc, attributes);
     }
 
-    protected void waitForPrint(DocPrintJob printJob, Doc doc, PrintRequestAttributeSet attributes) throws PrintException {
+    protected static void waitForPrint(DocPrintJob printJob, Doc doc, PrintRequestAttributeSet attributes) throws PrintException {
         final AtomicBoolean finished = new AtomicBoolean(false);
         printJob.addPrintJobListener(new PrintJobListener() {
             @Override
@@ -0,0 +1,255 @@
+package qz.printer.action.html;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import qz.utils.ConnectionUtilities;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Memory bounded, least-recently-used cache of rendered HTML pages.
+ * <p/>
+ * Pages are keyed by their content (or their URL and its validators) and the size and zoom they were rendered at.
+ * Cached images are shared between jobs and must be treated as read-only.
+ */
+class RasterCache {
+    private static final Logger log = LogManager.getLogger(RasterCache.class);
+
+    private static final int VALIDATE_TIMEOUT = 2000; // millis
+    private static final int MAX_VALIDATORS = 256;
+
+    // validators of recently checked pages, reused while the server says they are fresh
+    private static final LinkedHashMap<String,Validator> validators = new LinkedHashMap<String,Validator>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String,Validator> eldest) {
+            return size() > MAX_VALIDATORS;
+        }
+    };
+
+    private final long maxBytes;
+    private long usedBytes = 0;
+    private final LinkedHashMap<Key,BufferedImage> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * @param maxBytes Memory available to cached pages, {@code 0} disables caching
+     */
+    RasterCache(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    boolean isEnabled() {
+        return maxBytes > 0;
+    }
+
+    /**
+     * @return If a page of this size could be kept at all
+     */
+    boolean fits(int width, int height) {
+        return sizeOf(width, height) <= maxBytes;
+    }
+
+    synchronized BufferedImage get(Key key) {
+        BufferedImage image = entries.get(key);
+        if (image != null) {
+            hits.incrementAndGet();
+        } else {
+            misses.incrementAndGet();
+        }
+        log.debug("HTML raster cache {}, {} hits, {} misses, {}/{} KB used", image != null? "hit":"miss", hits.get(), misses.get(), usedBytes / 1024, maxBytes / 1024);
+
+        return image;
+    }
+
+    synchronized void put(Key key, BufferedImage image) {
+        long size = sizeOf(image.getWidth(), image.getHeight());
+        if (size > maxBytes) { return; }
+
+        BufferedImage replaced = entries.put(key, image);
+        if (replaced != null) {
+            usedBytes -= sizeOf(replaced.getWidth(), replaced.getHeight());
+        }
+        usedBytes += size;
+
+        Iterator<Map.Entry<Key,BufferedImage>> eldest = entries.entrySet().iterator();
+        while(usedBytes > maxBytes && eldest.hasNext()) {
+            BufferedImage evicted = eldest.next().getValue();
+            eldest.remove();
+            usedBytes -= sizeOf(evicted.getWidth(), evicted.getHeight());
+            log.trace("Evicted {}x{} page from HTML raster cache", evicted.getWidth(), evicted.getHeight());
+        }
+    }
+
+    long getHits() {
+        return hits.get();
+    }
+
+    long getMisses() {
+        return misses.get();
+    }
+
+    private static long sizeOf(int width, int height) {
+        return (long)width * height * 4; // int argb
+    }
+
+    /**
+     * Builds the cache key for a page.
+     *
+     * @return The key, or {@code null} if the page's source can't be validated and shouldn't be cached
+     */
+    static Key keyFor(WebAppModel model) {
+        String identity;
+        String validator;
+        if (model.isPlainText()) {
+            identity = DigestUtils.sha256Hex(model.getSource());
+            validator = "";
+        } else {
+            identity = model.getSource();
+            validator = findValidator(model.getSource());
+            if (validator == null) {
+                log.trace("No validators found for {}, not caching", identity);
+                return null;
+            }
+        }
+
+        return new Key(identity, validator, model.isPlainText(), model.getWebWidth(), model.getWebHeight(), model.getZoom());
+    }
+
+    /**
+     * @return Something that changes when the content behind {@code source} does, or {@code null} if nothing is available
+     */
+    private static String findValidator(String source) {
+        try {
+            URL url = new URL(source);
+            switch(url.getProtocol().toLowerCase(Locale.ENGLISH)) {
+                case "file":
+                    File file = new File(new URI(source));
+                    return file.isFile()? file.lastModified() + ":" + file.length():null;
+                case "http":
+                case "https":
+                    return findHttpValidator(source);
+                default:
+                    return null;
+            }
+        }
+        catch(IOException | IllegalArgumentException | URISyntaxException e) {
+            log.trace("Unable to validate {}: {}", source, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Asks the server for the page's validators, unless it said earlier that they are still fresh
+     */
+    private static String findHttpValidator(String source) throws IOException {
+        long now = System.currentTimeMillis();
+        synchronized(validators) {
+            Validator known = validators.get(source);
+            if (known != null && known.freshUntil > now) {
+                return known.value;
+            }
+        }
+
+        HttpURLConnection http = ConnectionUtilities.getHeaders(source, true, VALIDATE_TIMEOUT);
+        try {
+            if (http.getResponseCode() != HttpURLConnection.HTTP_OK) { return null; }
+            String etag = http.getHeaderField("ETag");
+            String modified = http.getHeaderField("Last-Modified");
+            if (etag == null && modified == null) { return null; }
+
+            String value = etag + ":" + modified;
+            long freshUntil = getFreshUntil(http.getHeaderField("Cache-Control"), http.getExpiration(), now);
+            synchronized(validators) {
+                if (freshUntil > now) {
+                    validators.put(source, new Validator(value, freshUntil));
+                } else {
+                    validators.remove(source);
+                }
+            }
+            return value;
+        }
+        finally {
+            http.disconnect();
+        }
+    }
+
+    /**
+     * @param expires Time given by the <code>Expires</code> header, {@code 0} if missing
+     * @return Time until which the server lets the response be reused without asking again, per its
+     * <code>Cache-Control</code> or <code>Expires</code> headers
+     */
+    static long getFreshUntil(String cacheControl, long expires, long now) {
+        if (cacheControl != null) {
+            for(String directive : cacheControl.toLowerCase(Locale.ENGLISH).split(",")) {
+                directive = directive.trim();
+                if (directive.equals("no-cache") || directive.equals("no-store")) {
+                    return 0;
+                }
+                if (directive.startsWith("max-age=")) {
+                    try {
+                        return now + Long.parseLong(directive.substring("max-age=".length()).trim()) * 1000;
+                    }
+                    catch(NumberFormatException ignore) {}
+                }
+            }
+        }
+        return expires;
+    }
+
+    private static class Validator {
+        private final String value;
+        private final long freshUntil;
+
+        Validator(String value, long freshUntil) {
+            this.value = value;
+            this.freshUntil = freshUntil;
+        }
+    }
+
+    static class Key {
+        private final String identity;
+        private final String validator;
+        private final boolean plainText;
+        private final double width;
+        private final double height;
+        private final double zoom;
+
+        Key(String identity, String validator, boolean plainText, double width, double height, double zoom) {
+            this.identity = identity;
+            this.validator = validator;
+            this.plainText = plainText;
+            this.width = width;
+            this.height = height;
+            this.zoom = zoom;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) { return true; }
+            if (!(o instanceof Key)) { return false; }
+            Key key = (Key)o;
+            return plainText == key.plainText && width == key.width && height == key.height && zoom == key.zoom
+                    && identity.equals(key.identity) && validator.equals(key.validator);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(identity, validator, plainText, width, height, zoom);
+        }
+    }
+}
@@ -11,11 +11,16 @@ import javafx.application.Platform;
 import javafx.beans.value.ChangeListener;
 import javafx.collections.ListChangeListener;
 import javafx.concurrent.Worker;
-import javafx.embed.swing.SwingFXUtils;
+import javafx.geometry.Bounds;
+import javafx.geometry.Rectangle2D;
 import javafx.print.PageLayout;
 import javafx.print.PrinterJob;
 import javafx.scene.Node;
 import javafx.scene.Scene;
+import javafx.scene.SnapshotParameters;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.WritableImage;
+import javafx.scene.text.Font;
 import javafx.scene.shape.Rectangle;
 import javafx.scene.transform.Scale;
 import javafx.scene.transform.Transform;
@@ -24,15 +29,20 @@ import javafx.scene.web.WebView;
 import javafx.stage.Stage;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import qz.App;
 import qz.common.Constants;
+import qz.utils.ArgValue;
+import qz.utils.PrefsSearch;
 import qz.utils.SystemUtilities;
 import qz.ws.PrintSocketServer;
 
 import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
 import java.io.IOException;
 import java.util.Set;
-import java.util.concurrent.CountDownLatch;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.IntPredicate;
 
@@ -40,31 +50,59 @@ import java.util.function.IntPredicate;
  * JavaFX container for taking HTML snapshots.
  * Used by PrintHTML to generate printable images.
  * <p/>
+ * Pages are rendered by a pool of independent off-screen {@code WebView}s, so separate jobs can render at the same time.
+ * <p/>
  * Do not use constructor (used by JavaFX), instead call {@code WebApp.initialize()}
  */
 public class WebApp extends Application {
+    /**
+     * @return The zoom used by the most recently rendered page, which may be lower than requested due to memory limitations
+     */
     public static double getZoom() {
-        return pageZoom;
+        return lastZoom;
     }
 
     private static final Logger log = LogManager.getLogger(WebApp.class);
 
     private static WebApp instance = null;
     private static Version webkitVersion = null;
+    private static String userAgent = null;
     private static int CAPTURE_FRAMES = 2;
+    private static final int TILE_HEIGHT = 2048; // pixels per snapshot, keeps textures and copies bounded on long pages
     private static int VECTOR_FRAMES = 1;
-    private static Stage stage;
-    private static WebView webView;
-    private static double pageWidth;
-    private static double pageHeight;
-    private static double pageZoom;
     private static boolean headless;
+    private static volatile double lastZoom;
+
+    private static final int STARTUP_TIMEOUT = 60; // seconds for the JavaFX platform to launch
+    private static final int READY_TIMEOUT = 90; // seconds a job waits, covers launch plus warm-up
+    private static final int RENDER_TIMEOUT = 300; // seconds a view may take to load and print or capture a page
+
+    /** Lifecycle of the JavaFX platform used for HTML rendering */
+    public enum State {
+        STOPPED,
+        STARTING,
+        READY,
+        FAILED
+    }
+
+    private static volatile State state = State.STOPPED;
+    private static volatile IOException failure;
+    // set when the JavaFX platform itself couldn't launch, it can only be launched once per process
+    private static volatile Throwable launchFailure;
+    private static long launchTime;
+    private static final AtomicBoolean firstJobLogged = new AtomicBoolean();
 
     private static CountDownLatch startupLatch;
-    private static CountDownLatch captureLatch;
+    private static volatile CountDownLatch readyLatch = new CountDownLatch(1);
 
-    private static IntPredicate printAction;
-    private static final AtomicReference<Throwable> thrown = new AtomicReference<>();
+    // idle views are reused most-recent first, new views are only created when all others are busy
+    private static final LinkedBlockingDeque<View> idleViews = new LinkedBlockingDeque<>();
+    private static final Object viewLock = new Object();
+    private static int viewCount = 0;
+    private static int maxViews = 1;
+    private static final AtomicInteger busyViews = new AtomicInteger();
+
+    private static RasterCache rasterCache = new RasterCache(0);
 
     // JDK-8283686: Printing WebView may results in empty page
     private static final Version JDK_8283686_START = Version.valueOf(/* WebKit */ "609.1.0");
@@ -72,162 +110,194 @@ public class WebApp extends Application {
     private static final int JDK_8283686_VECTOR_FRAMES = 30;
 
 
-    //listens for a Succeeded state to activate image capture
-    private static ChangeListener<Worker.State> stateListener = (ov, oldState, newState) -> {
-        log.trace("New state: {} > {}", oldState, newState);
-
-        // Cancelled should probably throw exception listener, but does not
-        if (newState == Worker.State.CANCELLED) {
-            // This can happen for file downloads, e.g. "response-content-disposition=attachment"
-            // See https://github.com/qzind/tray/issues/1183
-            unlatch(new IOException("Page load was cancelled for an unknown reason"));
-        }
-        if (newState == Worker.State.SUCCEEDED) {
-            boolean hasBody = (boolean)webView.getEngine().executeScript("document.body != null");
-            if (!hasBody) {
-                log.warn("Loaded page has no body - likely a redirect, skipping state");
-                return;
-            }
+    /** Called by JavaFX thread */
+    public WebApp() {
+        instance = this;
+    }
 
-            //width was resized earlier (for responsive html), then calculate the best fit height
-            // FIXME: Should only be needed when height is unknown but fixes blank vector prints
-            double fittedHeight = findHeight();
-            boolean heightNeeded = pageHeight <= 0;
+    public static State getState() {
+        return state;
+    }
 
-            if (heightNeeded) {
-                pageHeight = fittedHeight;
+    /**
+     * Starts JavaFX on a low priority background thread, including fonts and a warm-up render, without waiting for it
+     */
+    public static void prewarm() {
+        Thread prewarm = new Thread(() -> {
+            try {
+                start();
             }
-
-            // find and set page zoom for increased quality
-            double usableZoom = calculateSupportedZoom(pageWidth, pageHeight);
-            if (usableZoom < pageZoom) {
-                log.warn("Zoom level {} decreased to {} due to physical memory limitations", pageZoom, usableZoom);
-                pageZoom = usableZoom;
+            catch(IOException e) {
+                log.warn("Unable to start JavaFX in the background", e);
             }
-            webView.setZoom(pageZoom);
-            log.trace("Zooming in by x{} for increased quality", pageZoom);
+        }, "javafx-prewarm");
+        prewarm.setPriority(Thread.MIN_PRIORITY);
+        prewarm.setDaemon(true);
+        prewarm.start();
+    }
 
-            adjustSize(pageWidth * pageZoom, pageHeight * pageZoom);
+    /**
+     * Starts JavaFX thread if not already running, then waits until it is ready to render.  A failed or timed out
+     * startup is attempted again by the next job.
+     */
+    public static void initialize() throws IOException {
+        start();
 
-            //need to check for height again as resizing can cause partial results
-            if (heightNeeded) {
-                fittedHeight = findHeight();
-                if (fittedHeight != pageHeight) {
-                    adjustSize(pageWidth * pageZoom, fittedHeight * pageZoom);
+        CountDownLatch ready = readyLatch;
+        if (state != State.READY) {
+            long waitStart = System.nanoTime();
+            try {
+                log.trace("Waiting for JavaFX..");
+                if (!ready.await(READY_TIMEOUT, TimeUnit.SECONDS)) {
+                    throw new IOException("JavaFX did not start");
                 }
             }
+            catch(InterruptedException e) {
+                throw new IOException("Interrupted while waiting for JavaFX", e);
+            }
+            log.debug("Waited {}ms for JavaFX to be ready", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - waitStart));
+        }
 
-            log.trace("Set HTML page height to {}", pageHeight);
-
-            webView.autosize();
-
-            Platform.runLater(() -> new AnimationTimer() {
-                int frames = 0;
-
-                @Override
-                public void handle(long l) {
-                    if (printAction.test(++frames)) {
-                        stop();
-                    }
-                }
-            }.start());
+        if (state == State.FAILED) {
+            throw new IOException(failure.getMessage(), failure);
         }
-    };
+    }
 
-    //listens for load progress
-    private static ChangeListener<Number> workDoneListener = (ov, oldWork, newWork) -> log.trace("Done: {} > {}", oldWork, newWork);
+    /**
+     * Launches the JavaFX platform if needed, then waits for it to come up and warms it up on the calling thread
+     */
+    private static void start() throws IOException {
+        if (!launch()) {
+            return;
+        }
 
-    private static ChangeListener<String> msgListener = (ov, oldMsg, newMsg) -> log.trace("New status: {}", newMsg);
+        CountDownLatch ready = readyLatch;
+        try {
+            log.trace("Waiting for JavaFX..");
+            if (!startupLatch.await(STARTUP_TIMEOUT, TimeUnit.SECONDS)) {
+                throw new IOException("JavaFX did not start");
+            }
+            if (launchFailure != null) {
+                throw launchFailure;
+            }
 
-    //listens for failures
-    private static ChangeListener<Throwable> exceptListener = (obs, oldExc, newExc) -> {
-        if (newExc != null) { unlatch(newExc); }
-    };
+            // font discovery is slow the first time, do it before any job needs it
+            Font.getFamilies();
 
+            log.trace("Running a test snapshot to size the stage...");
+            raster(new WebAppModel("<h1>startup</h1>", true, 0, 0, true, 2));
 
-    /** Called by JavaFX thread */
-    public WebApp() {
-        instance = this;
+            state = State.READY;
+            log.info("JavaFX ready for HTML printing in {}ms", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - launchTime));
+        }
+        catch(Throwable t) {
+            failure = t instanceof IOException? (IOException)t:new IOException(t);
+            state = State.FAILED;
+            throw failure;
+        }
+        finally {
+            ready.countDown();
+        }
     }
 
-    /** Starts JavaFX thread if not already running */
-    public static synchronized void initialize() throws IOException {
-        if (instance == null) {
-            startupLatch = new CountDownLatch(1);
-            // For JDK8 compat
-            headless = false;
-
-            // JDK11+ depends bundled javafx
-            if (Constants.JAVA_VERSION.getMajorVersion() >= 11) {
-                // Monocle default for unit tests
-                boolean useMonocle = true;
-                if (PrintSocketServer.getTrayManager() != null) {
-                    // Honor user monocle override
-                    useMonocle = PrintSocketServer.getTrayManager().isMonoclePreferred();
-                    // Trust TrayManager's headless detection
-                    headless = PrintSocketServer.getTrayManager().isHeadless();
-                } else {
-                    // Fallback for JDK11+
-                    headless = true;
-                }
-                if (useMonocle) {
-                    if(SystemUtilities.hasMonocle()) {
-                        // Legacy "Monocle" mode
-                        System.setProperty("javafx.platform", "monocle");
-                        // Don't set glass.platform on Linux per https://github.com/qzind/tray/issues/702
-                        switch(SystemUtilities.getOs()) {
-                            case WINDOWS:
-                            case MAC:
-                                System.setProperty("glass.platform", "Monocle");
-                                break;
-                            default:
-                                // don't set "glass.platform"
-                        }
+    /**
+     * Launches the JavaFX platform if nothing has yet, or begins another attempt at a startup that failed or timed
+     * out, e.g. on a busy login.  The platform is only ever launched once, later attempts wait on that launch again.
+     *
+     * @return {@code true} if the caller started the attempt and is responsible for completing startup
+     */
+    private static synchronized boolean launch() {
+        if (state == State.STARTING || state == State.READY) {
+            return false;
+        }
+        if (state == State.FAILED) {
+            if (launchFailure != null) {
+                return false; // the platform can't be launched again in this process
+            }
+            log.info("Retrying JavaFX startup after an earlier failure: {}", failure.getMessage());
+            state = State.STARTING;
+            readyLatch = new CountDownLatch(1);
+            return true;
+        }
 
-                        //software rendering required headless environments
-                        if (headless) {
-                            System.setProperty("prism.order", "sw");
-                        }
-                    } else {
-                        // Assume newer "Headless" mode is available
-                        System.setProperty("glass.platform", "Headless");
-                        System.setProperty("prism.order", "sw"); // Per JDK-8382148
+        state = State.STARTING;
+        launchTime = System.nanoTime();
+        startupLatch = new CountDownLatch(1);
+        maxViews = Math.max(1, PrefsSearch.getInt(ArgValue.PRINT_HTML_VIEWS, App.getTrayProperties()));
+        rasterCache = new RasterCache(Math.max(0, PrefsSearch.getInt(ArgValue.PRINT_HTML_CACHE, App.getTrayProperties())) * 1024L * 1024L);
+
+        // For JDK8 compat
+        headless = false;
+
+        // JDK11+ depends bundled javafx
+        if (Constants.JAVA_VERSION.getMajorVersion() >= 11) {
+            // Monocle default for unit tests
+            boolean useMonocle = true;
+            if (PrintSocketServer.getTrayManager() != null) {
+                // Honor user monocle override
+                useMonocle = PrintSocketServer.getTrayManager().isMonoclePreferred();
+                // Trust TrayManager's headless detection
+                headless = PrintSocketServer.getTrayManager().isHeadless();
+            } else {
+                // Fallback for JDK11+
+                headless = true;
+            }
+            if (useMonocle) {
+                if(SystemUtilities.hasMonocle()) {
+                    // Legacy "Monocle" mode
+                    System.setProperty("javafx.platform", "monocle");
+                    // Don't set glass.platform on Linux per https://github.com/qzind/tray/issues/702
+                    switch(SystemUtilities.getOs()) {
+                        case WINDOWS:
+                        case MAC:
+                            System.setProperty("glass.platform", "Monocle");
+                            break;
+                        default:
+                            // don't set "glass.platform"
+                    }
+
+                    //software rendering required headless environments
+                    if (headless) {
+                        System.setProperty("prism.order", "sw");
                     }
-                    log.trace("Initializing {} glass.platform", SystemUtilities.hasMonocle() ? "monocle" : "headless");
                 } else {
-                    log.warn("{} glass.platform will not be used", SystemUtilities.hasMonocle() ? "Monocle" : "Headless");
+                    // Assume newer "Headless" mode is available
+                    System.setProperty("glass.platform", "Headless");
+                    System.setProperty("prism.order", "sw"); // Per JDK-8382148
                 }
+                log.trace("Initializing {} glass.platform", SystemUtilities.hasMonocle() ? "monocle" : "headless");
+            } else {
+                log.warn("{} glass.platform will not be used", SystemUtilities.hasMonocle() ? "Monocle" : "Headless");
             }
-
-            new Thread(() -> Application.launch(WebApp.class)).start();
         }
 
-        if (startupLatch.getCount() > 0) {
+        // the JavaFX thread inherits its priority from here, keep it normal even when pre-warming
+        Thread launcher = new Thread(() -> {
             try {
-                log.trace("Waiting for JavaFX..");
-                if (!startupLatch.await(60, TimeUnit.SECONDS)) {
-                    throw new IOException("JavaFX did not start");
-                } else {
-                    log.trace("Running a test snapshot to size the stage...");
-                    try {
-                        raster(new WebAppModel("<h1>startup</h1>", true, 0, 0, true, 2));
-                        log.trace("JFX initialized successfully");
-                    }
-                    catch(Throwable t) {
-                        throw new IOException(t);
-                    }
-                }
+                Application.launch(WebApp.class);
             }
-            catch(InterruptedException ignore) {}
-        }
+            catch(Throwable t) {
+                launchFailure = t;
+                startupLatch.countDown();
+            }
+        });
+        launcher.setPriority(Thread.NORM_PRIORITY);
+        launcher.start();
+        return true;
     }
 
     @Override
     public void start(Stage st) throws Exception {
-        startupLatch.countDown();
-        log.debug("Started JavaFX");
+        // the primary stage becomes the first pooled view
+        View view = new View(st);
+        userAgent = view.webView.getEngine().getUserAgent();
+        synchronized(viewLock) {
+            viewCount++;
+        }
+        idleViews.offerFirst(view);
 
-        webView = new WebView();
+        startupLatch.countDown();
+        log.debug("Started JavaFX, rendering up to {} HTML page(s) at once", maxViews);
 
         // JDK-8283686: Printing WebView may results in empty page
         // See also https://github.com/qzind/tray/issues/778
@@ -237,25 +307,8 @@ public class WebApp extends Application {
             VECTOR_FRAMES = JDK_8283686_VECTOR_FRAMES; // Additional pulses needed for vector graphics
         }
 
-        st.setScene(new Scene(webView));
-        stage = st;
-        stage.setWidth(1);
-        stage.setHeight(1);
-
-        Worker<Void> worker = webView.getEngine().getLoadWorker();
-        worker.stateProperty().addListener(stateListener);
-        worker.workDoneProperty().addListener(workDoneListener);
-        worker.exceptionProperty().addListener(exceptListener);
-        worker.messageProperty().addListener(msgListener);
-
         //prevents JavaFX from shutting down when hiding window
         Platform.setImplicitExit(false);
-
-        // hide webview scrollbars whenever they appear
-        webView.getChildrenUnmodifiable().addListener((ListChangeListener<Node>)change -> {
-            Set<Node> nodeSet = webView.lookupAll(".scroll-bar");
-            nodeSet.forEach(scroll -> scroll.setVisible(false));
-        });
     }
 
     /**
@@ -265,209 +318,182 @@ public class WebApp extends Application {
      * @param model The model specifying the web page parameters
      * @throws Throwable JavaFx will throw a generic {@code Throwable} class for any issues
      */
-    public static synchronized void print(final PrinterJob job, final WebAppModel model) throws Throwable {
-        model.setZoom(1); //vector prints do not need to use zoom
-
-        // prevents blank pages
-        Platform.runLater(() -> {
-            stage.show();
-            stage.toBack();
-        });
+    public static void print(final PrinterJob job, final WebAppModel model) throws Throwable {
+        View view = acquireView();
+        try {
+            view.print(job, model);
+        }
+        finally {
+            releaseView(view);
+        }
+        logFirstJob();
+    }
 
-        load(model, (int frames) -> {
-            if(frames >= VECTOR_FRAMES) {
-                try {
-                    double printScale = 72d / 96d;
-                    webView.getTransforms().add(new Scale(printScale, printScale));
-
-                    PageLayout layout = job.getJobSettings().getPageLayout();
-                    if (model.isScaled()) {
-                        double viewWidth = webView.getWidth() * printScale;
-                        double viewHeight = webView.getHeight() * printScale;
-
-                        double scale;
-                        if ((viewWidth / viewHeight) >= (layout.getPrintableWidth() / layout.getPrintableHeight())) {
-                            scale = (layout.getPrintableWidth() / viewWidth);
-                        } else {
-                            scale = (layout.getPrintableHeight() / viewHeight);
-                        }
-                        webView.getTransforms().add(new Scale(scale, scale));
-                    }
+    /**
+     * Receives a rendered page as horizontal strips, top to bottom.
+     */
+    @FunctionalInterface
+    public interface TileHandler {
+        /**
+         * @param tile   The rendered strip, reused for the next strip once this returns
+         * @param y      Offset of the strip from the top of the page
+         * @param width  Width of the full page
+         * @param height Height of the full page
+         */
+        void accept(BufferedImage tile, int y, int width, int height) throws IOException;
+    }
 
-                    Platform.runLater(() -> {
-                        Exception possiblyThrown = null;
-                        double useScale = 1;
-                        for(Transform t : webView.getTransforms()) {
-                            if (t instanceof Scale) { useScale *= ((Scale)t).getX(); }
-                        }
+    /**
+     * Renders the page specified in the passed {@code model} into a single image.
+     * The image may be shared through the raster cache and must not be drawn on.
+     */
+    public static BufferedImage raster(final WebAppModel model) throws Throwable {
+        RasterCache.Key key = rasterCache.isEnabled()? RasterCache.keyFor(model):null;
+        if (key != null) {
+            BufferedImage cached = rasterCache.get(key);
+            if (cached != null) { return cached; }
+        }
 
-                        PageLayout page = job.getJobSettings().getPageLayout();
-                        Rectangle printBounds = new Rectangle(0, 0, page.getPrintableWidth(), page.getPrintableHeight());
-                        log.debug("Paper area: {},{}:{},{}", (int)page.getLeftMargin(), (int)page.getTopMargin(),
-                                  (int)page.getPrintableWidth(), (int)page.getPrintableHeight());
+        AtomicReference<BufferedImage> capture = new AtomicReference<>();
+        rasterView(model, (tile, y, width, height) -> {
+            if (capture.get() == null) {
+                capture.set(new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB));
+            }
+            capture.get().getRaster().setRect(0, y, tile.getRaster());
+        });
 
-                        Translate activePage = new Translate();
-                        webView.getTransforms().add(activePage);
+        if (key != null) { rasterCache.put(key, capture.get()); }
+        return capture.get();
+    }
 
-                        int columnsNeed = Math.max(1, (int)Math.ceil(webView.getWidth() / printBounds.getWidth() * useScale - 0.1));
-                        int rowsNeed = Math.max(1, (int)Math.ceil(webView.getHeight() / printBounds.getHeight() * useScale - 0.1));
-                        log.debug("Document will be printed across {} pages", columnsNeed * rowsNeed);
+    /**
+     * Renders the page specified in the passed {@code model}, handing it to {@code handler} in strips
+     * so the full page never has to be held as a single snapshot.
+     */
+    public static void raster(final WebAppModel model, TileHandler handler) throws Throwable {
+        RasterCache.Key key = rasterCache.isEnabled()? RasterCache.keyFor(model):null;
+        if (key == null) {
+            rasterView(model, handler);
+            return;
+        }
 
-                        try {
-                            for(int row = 0; row < rowsNeed; row++) {
-                                for(int col = 0; col < columnsNeed; col++) {
-                                    activePage.setX((-col * printBounds.getWidth()) / useScale);
-                                    activePage.setY((-row * printBounds.getHeight()) / useScale);
+        BufferedImage cached = rasterCache.get(key);
+        if (cached != null) {
+            for(int y = 0; y < cached.getHeight(); y += TILE_HEIGHT) {
+                handler.accept(cached.getSubimage(0, y, cached.getWidth(), Math.min(TILE_HEIGHT, cached.getHeight() - y)), y, cached.getWidth(), cached.getHeight());
+            }
+            return;
+        }
 
-                                    job.printPage(webView);
-                                }
-                            }
-                        } catch(Exception e) {
-                            possiblyThrown = e;
-                        } finally {
-                            webView.getTransforms().clear();
-                        }
-                        unlatch(possiblyThrown);
-                    });
-                } catch(Exception e) {
-                    unlatch(e);
-                }
+        // keep a full copy of the strips for the cache, if the page could fit
+        AtomicReference<BufferedImage> capture = new AtomicReference<>();
+        rasterView(model, (tile, y, width, height) -> {
+            if (y == 0 && rasterCache.fits(width, height)) {
+                capture.set(new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB));
+            }
+            if (capture.get() != null) {
+                capture.get().getRaster().setRect(0, y, tile.getRaster());
             }
-            return frames >= VECTOR_FRAMES;
+            handler.accept(tile, y, width, height);
         });
 
-        log.trace("Waiting on print..");
-        captureLatch.await(); //released when unlatch is called
-
-        if (thrown.get() != null) { throw thrown.get(); }
+        if (capture.get() != null) { rasterCache.put(key, capture.get()); }
     }
 
-    public static synchronized BufferedImage raster(final WebAppModel model) throws Throwable {
-        AtomicReference<BufferedImage> capture = new AtomicReference<>();
-
+    private static void rasterView(final WebAppModel model, TileHandler handler) throws Throwable {
         //ensure JavaFX has started before we run
-        if (startupLatch.getCount() > 0) {
+        if (startupLatch == null || startupLatch.getCount() > 0) {
             throw new IOException("JavaFX has not been started");
         }
 
-        //raster still needs to show stage for valid capture
-        Platform.runLater(() -> {
-            stage.show();
-            stage.toBack();
-        });
-
-        load(model, (int frames) -> {
-            if (frames == CAPTURE_FRAMES) {
-                log.debug("Attempting image capture");
-
-                Toolkit.getToolkit().addPostSceneTkPulseListener(new TKPulseListener() {
-                    @Override
-                    public void pulse() {
-                        Exception possiblyThrown = null;
-                        try {
-                            // TODO: Revert to Callback once JDK-8244588/SUPQZ-5 is avail (JDK11+ only)
-                            capture.set(SwingFXUtils.fromFXImage(webView.snapshot(null, null), null));
-                        }
-                        catch(Exception t) {
-                            possiblyThrown = t;
-                        }
-                        finally {
-                            Toolkit.getToolkit().removePostSceneTkPulseListener(this);
-                        }
-                        unlatch(possiblyThrown);
-                    }
-                });
-                Toolkit.getToolkit().requestNextPulse();
-            }
-
-            return frames >= CAPTURE_FRAMES;
-        });
-
-        log.trace("Waiting on capture..");
-        captureLatch.await(); //released when unlatch is called
-
-        if (thrown.get() != null) { throw thrown.get(); }
+        View view = acquireView();
+        try {
+            view.raster(model, handler);
+        }
+        finally {
+            releaseView(view);
+        }
+        logFirstJob();
+    }
 
-        return capture.get();
+    private static void logFirstJob() {
+        // the warm-up render happens before the platform is ready, and isn't a job
+        if (state == State.READY && firstJobLogged.compareAndSet(false, true)) {
+            log.info("First HTML job finished {}ms after JavaFX launch", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - launchTime));
+        }
     }
 
     /**
-     * Prints the loaded source specified in the passed {@code model}.
-     *
-     * @param model  The model specifying the web page parameters.
-     * @param action EventHandler that will be ran when the WebView completes loading.
+     * Takes an idle view from the pool, creating a new one if the pool isn't full yet, otherwise waits for a view to free up.
      */
-    private static synchronized void load(WebAppModel model, IntPredicate action) {
-        captureLatch = new CountDownLatch(1);
-        thrown.set(null);
-
-        Platform.runLater(() -> {
-            //zoom should only be factored on raster prints
-            pageZoom = model.getZoom();
-            pageWidth = model.getWebWidth();
-            pageHeight = model.getWebHeight();
-
-            log.trace("Setting starting size {}:{}", pageWidth, pageHeight);
-            adjustSize(pageWidth * pageZoom, Math.max(pageHeight * pageZoom, 1));
-
-            webView.autosize();
-
-            printAction = action;
+    private static View acquireView() throws IOException, InterruptedException {
+        View view = idleViews.pollFirst();
+        while(view == null) {
+            boolean create;
+            synchronized(viewLock) {
+                create = viewCount < maxViews;
+                if (create) { viewCount++; }
+            }
 
-            if (model.isPlainText()) {
-                webView.getEngine().loadContent(model.getSource(), "text/html");
+            if (create) {
+                view = createView();
             } else {
-                webView.getEngine().load(model.getSource());
+                log.trace("Waiting for an available WebView..");
+                // check again now and then, a view dropped after a timeout frees a place for a new one
+                view = idleViews.pollFirst(1, TimeUnit.SECONDS);
             }
-        });
-    }
+        }
 
-    private static double findHeight() {
-        String heightText = webView.getEngine().executeScript("document.body.scrollHeight").toString();
-        return Double.parseDouble(heightText);
+        busyViews.incrementAndGet();
+        return view;
     }
 
-    private static void adjustSize(double toWidth, double toHeight) {
-        webView.setMinSize(toWidth, toHeight);
-        webView.setPrefSize(toWidth, toHeight);
-        webView.setMaxSize(toWidth, toHeight);
-        doUpdatePeer();
+    private static View createView() throws IOException, InterruptedException {
+        log.debug("Creating additional WebView for HTML rendering");
+        FutureTask<View> task = new FutureTask<>(() -> new View(new Stage()));
+        Platform.runLater(task);
+        try {
+            return task.get();
+        }
+        catch(ExecutionException e) {
+            synchronized(viewLock) {
+                viewCount--;
+            }
+            throw new IOException("Unable to create WebView", e.getCause());
+        }
     }
 
-    private static void doUpdatePeer() {
-        // Call updatePeer; fixes a bug with webView resizing
-        SceneHelper.setAllowPGAccess(true);
-        NodeHelper.updatePeer(webView);
-        SceneHelper.setAllowPGAccess(false);
+    /**
+     * Returns a view to the pool, unless its page never finished, in which case it's closed and left out of the pool
+     */
+    private static void releaseView(View view) {
+        busyViews.decrementAndGet();
+        if (view.isStuck()) {
+            log.warn("Dropping a WebView whose page did not finish within {} seconds", RENDER_TIMEOUT);
+            synchronized(viewLock) {
+                viewCount--;
+            }
+            Platform.runLater(view::close);
+            return;
+        }
+        idleViews.offerFirst(view);
     }
 
-    private static double calculateSupportedZoom(double width, double height) {
+    private static double calculateSupportedZoom(double width, double height, double pageZoom) {
         long memory = Runtime.getRuntime().maxMemory();
         int allowance = (memory / 1048576L) > 1024? 3:2;
         if (headless) { allowance--; }
-        long availSpace = memory << allowance;
+        // pages rendering at the same time each only get their share
+        long availSpace = (memory << allowance) / Math.max(1, busyViews.get());
 
         // Memory needed for print is roughly estimated as
         // (width * height) [pixels needed] * (pageZoom * 72d) [print density used] * 3 [rgb channels]
         return Math.sqrt(availSpace / ((width * height) * (pageZoom * 72d) * 3));
     }
 
-    /**
-     * Final cleanup when no longer capturing
-     */
-    public static void unlatch(Throwable t) {
-        if (t != null) {
-            thrown.set(t);
-        }
-
-        captureLatch.countDown();
-        stage.hide();
-    }
-
     public static Version getWebkitVersion() {
         if(webkitVersion == null) {
-            if(webView != null) {
-                String userAgent = webView.getEngine().getUserAgent();
+            if(userAgent != null) {
                 String[] parts = userAgent.split("WebKit/");
                 if (parts.length > 1) {
                     String[] split = parts[1].split(" ");
@@ -487,4 +513,354 @@ public class WebApp extends Application {
         }
         return webkitVersion;
     }
-}
\ No newline at end of file
+
+
+    /**
+     * A single off-screen stage and {@code WebView}, rendering one page at a time.
+     * Created and updated on the JavaFX thread; {@code print} and {@code raster} block the calling thread on this view's latch.
+     */
+    private static class View {
+        private final Stage stage;
+        private final WebView webView;
+        private double pageWidth;
+        private double pageHeight;
+        private double pageZoom;
+        private Bounds renderedBounds;
+
+        private CountDownLatch captureLatch;
+        private volatile boolean stuck;
+        private IntPredicate printAction;
+        private final AtomicReference<Throwable> thrown = new AtomicReference<>();
+
+        //listens for a Succeeded state to activate image capture
+        private final ChangeListener<Worker.State> stateListener = (ov, oldState, newState) -> {
+            log.trace("New state: {} > {}", oldState, newState);
+
+            // Cancelled should probably throw exception listener, but does not
+            if (newState == Worker.State.CANCELLED) {
+                // This can happen for file downloads, e.g. "response-content-disposition=attachment"
+                // See https://github.com/qzind/tray/issues/1183
+                unlatch(new IOException("Page load was cancelled for an unknown reason"));
+            }
+            if (newState == Worker.State.SUCCEEDED) {
+                boolean hasBody = (boolean)webView.getEngine().executeScript("document.body != null");
+                if (!hasBody) {
+                    log.warn("Loaded page has no body - likely a redirect, skipping state");
+                    return;
+                }
+
+                //width was resized earlier (for responsive html), then calculate the best fit height
+                // FIXME: Should only be needed when height is unknown but fixes blank vector prints
+                double fittedHeight = findHeight();
+                boolean heightNeeded = pageHeight <= 0;
+
+                if (heightNeeded) {
+                    pageHeight = fittedHeight;
+                }
+
+                // find and set page zoom for increased quality
+                double usableZoom = calculateSupportedZoom(pageWidth, pageHeight, pageZoom);
+                if (usableZoom < pageZoom) {
+                    log.warn("Zoom level {} decreased to {} due to physical memory limitations", pageZoom, usableZoom);
+                    pageZoom = usableZoom;
+                }
+                lastZoom = pageZoom;
+                webView.setZoom(pageZoom);
+                log.trace("Zooming in by x{} for increased quality", pageZoom);
+
+                adjustSize(pageWidth * pageZoom, pageHeight * pageZoom);
+
+                //need to check for height again as resizing can cause partial results
+                if (heightNeeded) {
+                    fittedHeight = findHeight();
+                    if (fittedHeight != pageHeight) {
+                        adjustSize(pageWidth * pageZoom, fittedHeight * pageZoom);
+                    }
+                }
+
+                log.trace("Set HTML page height to {}", pageHeight);
+
+                webView.autosize();
+
+                Platform.runLater(() -> new AnimationTimer() {
+                    int frames = 0;
+
+                    @Override
+                    public void handle(long l) {
+                        if (printAction.test(++frames)) {
+                            stop();
+                        }
+                    }
+                }.start());
+            }
+        };
+
+        //listens for load progress
+        private final ChangeListener<Number> workDoneListener = (ov, oldWork, newWork) -> log.trace("Done: {} > {}", oldWork, newWork);
+
+        private final ChangeListener<String> msgListener = (ov, oldMsg, newMsg) -> log.trace("New status: {}", newMsg);
+
+        //listens for failures
+        private final ChangeListener<Throwable> exceptListener = (obs, oldExc, newExc) -> {
+            if (newExc != null) { unlatch(newExc); }
+        };
+
+
+        /** Must be called on the JavaFX thread */
+        View(Stage st) {
+            webView = new WebView();
+
+            st.setScene(new Scene(webView));
+            stage = st;
+            stage.setWidth(1);
+            stage.setHeight(1);
+
+            Worker<Void> worker = webView.getEngine().getLoadWorker();
+            worker.stateProperty().addListener(stateListener);
+            worker.workDoneProperty().addListener(workDoneListener);
+            worker.exceptionProperty().addListener(exceptListener);
+            worker.messageProperty().addListener(msgListener);
+
+            // hide webview scrollbars whenever they appear
+            webView.getChildrenUnmodifiable().addListener((ListChangeListener<Node>)change -> {
+                Set<Node> nodeSet = webView.lookupAll(".scroll-bar");
+                nodeSet.forEach(scroll -> scroll.setVisible(false));
+            });
+        }
+
+        void print(final PrinterJob job, final WebAppModel model) throws Throwable {
+            model.setZoom(1); //vector prints do not need to use zoom
+
+            // prevents blank pages
+            Platform.runLater(() -> {
+                stage.show();
+                stage.toBack();
+            });
+
+            load(model, (int frames) -> {
+                if(frames >= VECTOR_FRAMES) {
+                    try {
+                        double printScale = 72d / 96d;
+                        webView.getTransforms().add(new Scale(printScale, printScale));
+
+                        PageLayout layout = job.getJobSettings().getPageLayout();
+                        if (model.isScaled()) {
+                            double viewWidth = webView.getWidth() * printScale;
+                            double viewHeight = webView.getHeight() * printScale;
+
+                            double scale;
+                            if ((viewWidth / viewHeight) >= (layout.getPrintableWidth() / layout.getPrintableHeight())) {
+                                scale = (layout.getPrintableWidth() / viewWidth);
+                            } else {
+                                scale = (layout.getPrintableHeight() / viewHeight);
+                            }
+                            webView.getTransforms().add(new Scale(scale, scale));
+                        }
+
+                        Platform.runLater(() -> {
+                            Exception possiblyThrown = null;
+                            double useScale = 1;
+                            for(Transform t : webView.getTransforms()) {
+                                if (t instanceof Scale) { useScale *= ((Scale)t).getX(); }
+                            }
+
+                            PageLayout page = job.getJobSettings().getPageLayout();
+                            Rectangle printBounds = new Rectangle(0, 0, page.getPrintableWidth(), page.getPrintableHeight());
+                            log.debug("Paper area: {},{}:{},{}", (int)page.getLeftMargin(), (int)page.getTopMargin(),
+                                      (int)page.getPrintableWidth(), (int)page.getPrintableHeight());
+
+                            Translate activePage = new Translate();
+                            webView.getTransforms().add(activePage);
+
+                            int columnsNeed = Math.max(1, (int)Math.ceil(webView.getWidth() / printBounds.getWidth() * useScale - 0.1));
+                            int rowsNeed = Math.max(1, (int)Math.ceil(webView.getHeight() / printBounds.getHeight() * useScale - 0.1));
+                            log.debug("Document will be printed across {} pages", columnsNeed * rowsNeed);
+
+                            try {
+                                for(int row = 0; row < rowsNeed; row++) {
+                                    for(int col = 0; col < columnsNeed; col++) {
+                                        activePage.setX((-col * printBounds.getWidth()) / useScale);
+                                        activePage.setY((-row * printBounds.getHeight()) / useScale);
+
+                                        job.printPage(webView);
+                                    }
+                                }
+                            } catch(Exception e) {
+                                possiblyThrown = e;
+                            } finally {
+                                webView.getTransforms().clear();
+                            }
+                            unlatch(possiblyThrown);
+                        });
+                    } catch(Exception e) {
+                        unlatch(e);
+                    }
+                }
+                return frames >= VECTOR_FRAMES;
+            });
+
+            try {
+                log.trace("Waiting on print..");
+                awaitCapture();
+            }
+            finally {
+                Platform.runLater(stage::hide);
+            }
+        }
+
+        void raster(final WebAppModel model, TileHandler handler) throws Throwable {
+            //raster still needs to show stage for valid capture
+            Platform.runLater(() -> {
+                stage.show();
+                stage.toBack();
+            });
+
+            load(model, (int frames) -> {
+                if (frames == CAPTURE_FRAMES) {
+                    renderedBounds = webView.getBoundsInParent();
+                    unlatch(null);
+                }
+
+                return frames >= CAPTURE_FRAMES;
+            });
+
+            try {
+                log.trace("Waiting on render..");
+                awaitCapture();
+
+                log.debug("Attempting image capture");
+                Bounds bounds = renderedBounds;
+                int x = (int)Math.floor(bounds.getMinX()), y = (int)Math.floor(bounds.getMinY());
+                int width = (int)Math.ceil(bounds.getMaxX()) - x, height = (int)Math.ceil(bounds.getMaxY()) - y;
+                if (width <= 0 || height <= 0) {
+                    throw new IOException("Rendered page has no area");
+                }
+
+                int tileHeight = Math.min(height, TILE_HEIGHT);
+                WritableImage fxTile = new WritableImage(width, tileHeight);
+                BufferedImage tile = new BufferedImage(width, tileHeight, BufferedImage.TYPE_INT_ARGB);
+                int[] tileData = ((DataBufferInt)tile.getRaster().getDataBuffer()).getData();
+
+                SnapshotParameters params = new SnapshotParameters();
+                for(int offset = 0; offset < height; offset += tileHeight) {
+                    int rows = Math.min(tileHeight, height - offset);
+                    params.setViewport(new Rectangle2D(x, y + offset, width, rows));
+
+                    // TODO: Revert to Callback once JDK-8244588/SUPQZ-5 is avail (JDK11+ only)
+                    FutureTask<Void> snapshot = new FutureTask<>(() -> {
+                        webView.snapshot(params, fxTile);
+                        fxTile.getPixelReader().getPixels(0, 0, width, rows, PixelFormat.getIntArgbInstance(), tileData, 0, width);
+                        return null;
+                    });
+                    Platform.runLater(() -> {
+                        Toolkit.getToolkit().addPostSceneTkPulseListener(new TKPulseListener() {
+                            @Override
+                            public void pulse() {
+                                Toolkit.getToolkit().removePostSceneTkPulseListener(this);
+                                snapshot.run();
+                            }
+                        });
+                        Toolkit.getToolkit().requestNextPulse();
+                    });
+
+                    try {
+                        snapshot.get();
+                    }
+                    catch(ExecutionException e) {
+                        throw e.getCause();
+                    }
+
+                    log.trace("Captured rows {}-{} of {}", offset, offset + rows, height);
+                    handler.accept(rows == tileHeight? tile:tile.getSubimage(0, 0, width, rows), offset, width, height);
+                }
+            }
+            finally {
+                Platform.runLater(stage::hide);
+            }
+        }
+
+        /**
+         * Prints the loaded source specified in the passed {@code model}.
+         *
+         * @param model  The model specifying the web page parameters.
+         * @param action EventHandler that will be ran when the WebView completes loading.
+         */
+        private void load(WebAppModel model, IntPredicate action) {
+            captureLatch = new CountDownLatch(1);
+            thrown.set(null);
+
+            Platform.runLater(() -> {
+                //zoom should only be factored on raster prints
+                pageZoom = model.getZoom();
+                pageWidth = model.getWebWidth();
+                pageHeight = model.getWebHeight();
+
+                log.trace("Setting starting size {}:{}", pageWidth, pageHeight);
+                adjustSize(pageWidth * pageZoom, Math.max(pageHeight * pageZoom, 1));
+
+                webView.autosize();
+
+                printAction = action;
+
+                if (model.isPlainText()) {
+                    webView.getEngine().loadContent(model.getSource(), "text/html");
+                } else {
+                    webView.getEngine().load(model.getSource());
+                }
+            });
+        }
+
+        private double findHeight() {
+            String heightText = webView.getEngine().executeScript("document.body.scrollHeight").toString();
+            return Double.parseDouble(heightText);
+        }
+
+        private void adjustSize(double toWidth, double toHeight) {
+            webView.setMinSize(toWidth, toHeight);
+            webView.setPrefSize(toWidth, toHeight);
+            webView.setMaxSize(toWidth, toHeight);
+            doUpdatePeer();
+        }
+
+        private void doUpdatePeer() {
+            // Call updatePeer; fixes a bug with webView resizing
+            SceneHelper.setAllowPGAccess(true);
+            NodeHelper.updatePeer(webView);
+            SceneHelper.setAllowPGAccess(false);
+        }
+
+        /**
+         * Waits for {@link #unlatch(Throwable)}, marking the view as stuck if the page doesn't finish in time
+         */
+        private void awaitCapture() throws Throwable {
+            if (!captureLatch.await(RENDER_TIMEOUT, TimeUnit.SECONDS)) {
+                stuck = true;
+                throw new IOException(String.format("Page did not finish rendering within %d seconds", RENDER_TIMEOUT));
+            }
+            if (thrown.get() != null) { throw thrown.get(); }
+        }
+
+        boolean isStuck() {
+            return stuck;
+        }
+
+        /**
+         * Stops the page still loading and closes the stage, for a view dropped from the pool.  Called on the JavaFX thread.
+         */
+        void close() {
+            webView.getEngine().getLoadWorker().cancel();
+            stage.close();
+        }
+
+        /**
+         * Releases the thread waiting on the current load, the stage is hidden by the waiting thread
+         */
+        private void unlatch(Throwable t) {
+            if (t != null) {
+                thrown.set(t);
+            }
+
+            captureLatch.countDown();
+        }
+    }
+}
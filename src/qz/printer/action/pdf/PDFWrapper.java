@@ -39,6 +39,15 @@ public class PDFWrapper implements Printable {
     }
 
 
+    /**
+     * Presents a single page of the wrapped document as its own one-page {@code Printable}
+     *
+     * @param documentPage Zero-based page index within the wrapped document
+     */
+    public Printable forPage(int documentPage) {
+        return (graphics, pageFormat, pageIndex) -> pageIndex == 0? print(graphics, pageFormat, documentPage):NO_SUCH_PAGE;
+    }
+
     @Override
     public int print(Graphics graphics, PageFormat pageFormat, int pageIndex) throws PrinterException {
         log.debug("Paper area: {},{}:{},{}", (int)pageFormat.getImageableX(), (int)pageFormat.getImageableY(),
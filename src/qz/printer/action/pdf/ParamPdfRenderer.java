@@ -1,6 +1,7 @@
 package qz.printer.action.pdf;
 
 import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.font.PDFont;
 import org.apache.pdfbox.rendering.PDFRenderer;
 import org.apache.pdfbox.rendering.PageDrawer;
 import org.apache.pdfbox.rendering.PageDrawerParameters;
@@ -8,13 +9,19 @@ import qz.printer.rendering.OpaqueDrawObject;
 import qz.printer.rendering.OpaqueGraphicStateParameters;
 import qz.printer.rendering.PdfFontPageDrawer;
 
+import java.awt.*;
 import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
 
 public class ParamPdfRenderer extends PDFRenderer {
 
     private boolean useAlternateFontRendering;
     private boolean ignoreTransparency;
 
+    // resolved once per document rather than once per page
+    private final Map<PDFont,Font> awtFonts = new HashMap<>();
+
     public ParamPdfRenderer(PDDocument document, boolean useAlternateFontRendering, boolean ignoreTransparency) {
         super(document);
 
@@ -25,7 +32,7 @@ public class ParamPdfRenderer extends PDFRenderer {
     @Override
     protected PageDrawer createPageDrawer(PageDrawerParameters parameters) throws IOException {
         if (useAlternateFontRendering) {
-            return new PdfFontPageDrawer(parameters, ignoreTransparency);
+            return new PdfFontPageDrawer(parameters, ignoreTransparency, awtFonts);
         } else if(ignoreTransparency) {
             return new OpaquePageDrawer(parameters);
         }
@@ -101,6 +101,16 @@ public enum LanguageType implements Sluggable {
         return imgWidthValidated;
     }
 
+    /**
+     * Returns whether this {@code LanguageType} only prints black and white pixels,
+     * allowing images to be rendered at a reduced raster depth before conversion.
+     *
+     * @return {@code true} if the image converter discards color information
+     */
+    public boolean isMonochrome() {
+        return this != EVOLIS;
+    }
+
     public double getDefaultDensity() {
         return defaultDensity;
     }
@@ -74,7 +74,7 @@ public abstract class MonoImageConverter extends ImageConverter {
         log.info("Converting image to monochrome...");
         int w = bi.getWidth();
         int h = bi.getHeight();
-        int[] rgbPixels = bi.getRGB(0, 0, w, h, null, 0, w);
+        int[] rgbRow = new int[w]; // read a row at a time, packed sources shouldn't be expanded to a full int raster
 
         /*
          * It makes most sense to have black pixels as 1's and white pixels
@@ -84,9 +84,12 @@ public abstract class MonoImageConverter extends ImageConverter {
          * See also: https://support.zebra.com/cpws/docs/eltron/gw_command.htm
          */
         PixelGrid pixels = new PixelGrid(w, h);
-        for(int i = 0; i < rgbPixels.length; i++) {
-            boolean isBlack = languageType.requiresImageOutputInverted() != isBlack(rgbPixels[i], quantization, threshold);
-            pixels.set(i, isBlack);
+        for(int y = 0; y < h; y++) {
+            bi.getRGB(0, y, w, 1, rgbRow, 0, w);
+            for(int x = 0; x < w; x++) {
+                boolean isBlack = languageType.requiresImageOutputInverted() != isBlack(rgbRow[x], quantization, threshold);
+                pixels.set(y * w + x, isBlack);
+            }
         }
 
         return pixels;
@@ -147,7 +150,17 @@ public abstract class MonoImageConverter extends ImageConverter {
             if (width % 8 != 0) {
                 log.info("{} requires image are a multiple of 8, padding", languageType);
                 int newWidth = (width / 8 + 1) * 8;
-                BufferedImage newImage = new BufferedImage(newWidth, height, BufferedImage.TYPE_INT_ARGB);
+                BufferedImage newImage;
+                if (inputImage.getType() == BufferedImage.TYPE_BYTE_BINARY || inputImage.getType() == BufferedImage.TYPE_BYTE_GRAY) {
+                    // opaque rasters can't be padded with transparency, pad with white instead
+                    newImage = new BufferedImage(newWidth, height, inputImage.getType());
+                    Graphics2D g = newImage.createGraphics();
+                    g.setColor(Color.WHITE);
+                    g.fillRect(0, 0, newWidth, height);
+                    g.dispose();
+                } else {
+                    newImage = new BufferedImage(newWidth, height, BufferedImage.TYPE_INT_ARGB);
+                }
 
                 Graphics2D g = newImage.createGraphics();
                 g.drawImage(inputImage, 0, 0, null);
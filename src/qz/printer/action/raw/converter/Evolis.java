@@ -14,15 +14,27 @@ import qz.printer.action.raw.PixelGrid;
 import qz.utils.ConnectionUtilities;
 
 import javax.imageio.ImageIO;
-import java.awt.*;
 import java.awt.image.BufferedImage;
 import java.io.IOException;
-import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.stream.IntStream;
 
 public class Evolis extends ImageConverter {
     private static final Logger log = LogManager.getLogger(Evolis.class);
 
+    private static final long OVERLAY_LIFESPAN = 60000; // in milliseconds
+    private static final int OVERLAY_CACHE_SIZE = 8;
+
+    // recently decoded overlay masks, keyed by location
+    private static final Map<String,OverlayMask> overlayCache = new LinkedHashMap<String,OverlayMask>(OVERLAY_CACHE_SIZE, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String,OverlayMask> eldest) {
+            return size() > OVERLAY_CACHE_SIZE;
+        }
+    };
+
     private int precision;
     private Object overlay;
 
@@ -51,18 +63,23 @@ public class Evolis extends ImageConverter {
         int h = getHeight();
 
         try {
-            ArrayList<float[]> cymkData = convertToCYMK(getBufferedImage(), w, h);
+            // Y,M,C,K,O ribbon; K(black) and O(overlay) are always precision 2
+            byte[][] panels = convertToYMCK(getBufferedImage(), w, h, precision);
+            int[] precisions = {precision, precision, precision, 2, 2};
+            char[] ribbons = {'y', 'm', 'c', 'k', 'o'};
 
-            // Y,M,C,K,O ribbon
-            appendRibbonDataTo(byteBuffer, 'y', precision, cymkData.get(1));
-            appendRibbonDataTo(byteBuffer, 'm', precision, cymkData.get(2));
-            appendRibbonDataTo(byteBuffer, 'c', precision, cymkData.get(0));
+            if (overlay != null) {
+                panels = Arrays.copyOf(panels, panels.length + 1);
+                panels[panels.length - 1] = parseOverlay(overlay, w, h);
+            }
 
-            // K(black) and O(overlay) are always precision 2
-            appendRibbonDataTo( byteBuffer, 'k', 2, cymkData.get(3));
+            // each panel packs independently, so compact them concurrently
+            final byte[][] values = panels;
+            byte[][] packed = new byte[values.length][];
+            IntStream.range(0, values.length).parallel().forEach(i -> packed[i] = compactBits(precisions[i], values[i]));
 
-            if (overlay != null) {
-                appendRibbonDataTo(byteBuffer, 'o', 2, parseOverlay(overlay, w, h));
+            for(int i = 0; i < packed.length; i++) {
+                appendRibbonDataTo(byteBuffer, ribbons[i], precisions[i], packed[i]);
             }
         }
         catch(IOException | JSONException e) {
@@ -72,39 +89,48 @@ public class Evolis extends ImageConverter {
         return byteBuffer;
     }
 
-    private ArrayList<float[]> convertToCYMK(BufferedImage bufferedImage, int width, int height) throws IOException {
+    /**
+     * Splits the image into yellow, magenta, cyan and black panels, pre-scaled to their ribbon precision
+     */
+    private static byte[][] convertToYMCK(BufferedImage bufferedImage, int width, int height, int precision) {
         int[] pixels = bufferedImage.getRGB(0, 0, width, height, null, 0, width);
 
-        float[] cyan = new float[pixels.length];
-        float[] yellow = new float[pixels.length];
-        float[] magenta = new float[pixels.length];
-        float[] black = new float[pixels.length];
-
-        for(int i = 0; i < pixels.length; i++) {
-            float[] rgb = new Color(pixels[i]).getRGBColorComponents(null);
-            if (rgb[0] == 0.0f && rgb[1] == 0.0f && rgb[2] == 0.0f) {
-                black[i] = 1.0f;
-            } else {
-                cyan[i] = 1.0f - rgb[0];
-                magenta[i] = 1.0f - rgb[1];
-                yellow[i] = 1.0f - rgb[2];
-            }
+        // channel values are 0-255, so the color-to-ribbon conversion can be looked up instead of calculated
+        byte[] lookup = new byte[256];
+        for(int v = 0; v < lookup.length; v++) {
+            lookup[v] = byteValue(1.0f - v / 255f, precision);
         }
+        byte full = byteValue(1.0f, 2);
+
+        byte[] yellow = new byte[pixels.length];
+        byte[] magenta = new byte[pixels.length];
+        byte[] cyan = new byte[pixels.length];
+        byte[] black = new byte[pixels.length];
+
+        IntStream.range(0, height).parallel().forEach(y -> {
+            for(int i = y * width; i < (y + 1) * width; i++) {
+                int r = (pixels[i] >> 16) & 0xFF;
+                int g = (pixels[i] >> 8) & 0xFF;
+                int b = pixels[i] & 0xFF;
+                if (r == 0 && g == 0 && b == 0) {
+                    black[i] = full;
+                } else {
+                    cyan[i] = lookup[r];
+                    magenta[i] = lookup[g];
+                    yellow[i] = lookup[b];
+                }
+            }
+        });
 
-        ArrayList<float[]> colorData = new ArrayList<>();
-        colorData.add(cyan);
-        colorData.add(yellow);
-        colorData.add(magenta);
-        colorData.add(black);
-
-        return colorData;
+        return new byte[][] {yellow, magenta, cyan, black};
     }
 
     /**
      * Parses the provided JSON|String|boolean data for determining the clear/overlay layer
      */
-    private static float[] parseOverlay(Object overlay, int width, int height) throws IOException, JSONException {
-        float[] overlayData = new float[width * height];
+    private static byte[] parseOverlay(Object overlay, int width, int height) throws IOException, JSONException {
+        byte[] overlayData = new byte[width * height];
+        byte full = byteValue(1.0f, 2);
 
         if (overlay instanceof JSONArray) {
             // array of rectangles
@@ -116,7 +142,7 @@ public class Evolis extends ImageConverter {
                         int off = (y * width);
                         for(int x = block.getInt(0) - 1; x < block.getInt(2); x++) {
                             if ((off + x) >= 0 && (off + x) < overlayData.length) {
-                                overlayData[off + x] = 1.0f;
+                                overlayData[off + x] = full;
                             }
                         }
                     }
@@ -124,47 +150,75 @@ public class Evolis extends ImageConverter {
             }
         } else if (overlay instanceof String) {
             // image mask
-            BufferedImage maskImage = ImageIO.read(ConnectionUtilities.getInputStream((String)overlay, true));
-            PixelGrid mask = MonoImageConverter.generateBlackPixels(maskImage, LanguageType.EVOLIS, MonoImageConverter.Quantization.BLACK, 127);
+            PixelGrid mask = getOverlayMask((String)overlay);
             for(int i = 0; i < mask.size(); i++) {
-                overlayData[i] = (mask.get(i)? 1.0f:0.0f);
+                overlayData[i] = (mask.get(i)? full:0);
             }
         } else if (overlay instanceof Boolean && (boolean)overlay) {
             // boolean coat
-            Arrays.fill(overlayData, 1.0f);
+            Arrays.fill(overlayData, full);
         }
 
         return overlayData;
     }
 
-    private static void appendRibbonDataTo(ByteArrayBuilder byteBuffer, char ribbon, int precision, float[] colorData) throws IOException {
+    /**
+     * Fetches and decodes the overlay image mask, reusing a recently decoded copy of the same location
+     */
+    private static PixelGrid getOverlayMask(String location) throws IOException {
+        long now = System.currentTimeMillis();
+        synchronized(overlayCache) {
+            OverlayMask cached = overlayCache.get(location);
+            if (cached != null && cached.timestamp + OVERLAY_LIFESPAN > now) {
+                log.debug("Reusing cached overlay mask for {}", location);
+                return cached.mask;
+            }
+        }
+
+        BufferedImage maskImage = ImageIO.read(ConnectionUtilities.getInputStream(location, true));
+        if (maskImage == null) {
+            throw new IOException("Unable to decode overlay image " + location);
+        }
+        PixelGrid mask = MonoImageConverter.generateBlackPixels(maskImage, LanguageType.EVOLIS, MonoImageConverter.Quantization.BLACK, 127);
+
+        synchronized(overlayCache) {
+            overlayCache.put(location, new OverlayMask(mask, now));
+        }
+        return mask;
+    }
+
+    private static void appendRibbonDataTo(ByteArrayBuilder byteBuffer, char ribbon, int precision, byte[] packedData) throws IOException {
         log.debug("Building ribbon 'Db;{};{};...'", ribbon, precision);
 
         byteBuffer.append("\u001BDb;", ribbon, ";", precision, ";");
-        byteBuffer.append(compactBits(precision, colorData));
+        byteBuffer.append(packedData);
         byteBuffer.append(new byte[] {0x0D});
     }
 
-    private static ArrayList<Byte> compactBits(int precision, float[] colorData) {
-        ArrayList<Byte> bytes = new ArrayList<>();
+    /**
+     * Packs the ribbon values into a continuous bit stream, each value occupying the number of bits its precision requires
+     */
+    private static byte[] compactBits(int precision, byte[] values) {
+        byte[] bytes = new byte[values.length];
+        int length = 0;
 
         int bits = precisionBits(precision);
         int empty = 8 - bits;
 
-        for(int i = 0; i < colorData.length; i++) {
+        for(int i = 0; i < values.length; i++) {
             byte b = 0;
             int captured = 0;
 
-            b |= (byte)(byteValue(colorData[i], precision) << empty);
+            b |= (byte)(values[i] << empty);
             captured += 8 - empty;
 
-            while(captured < 8 && (i + 1) < colorData.length) {
+            while(captured < 8 && (i + 1) < values.length) {
                 int excess = bits - empty;
 
                 if (excess > 0) { //because negative shifts don't go backwards
-                    b |= (byte)(byteValue(colorData[i + 1], precision) >> excess);
+                    b |= (byte)(values[i + 1] >> excess);
                 } else {
-                    b |= (byte)(byteValue(colorData[i + 1], precision) << Math.abs(excess));
+                    b |= (byte)(values[i + 1] << Math.abs(excess));
                 }
                 captured += bits - Math.max(0, excess);
                 if (captured < 8 && excess <= 0) { i++; } //if we've eaten an entire color point but haven't filled the byte, increase index looking at
@@ -173,10 +227,10 @@ public class Evolis extends ImageConverter {
                 if (empty > 8) { empty -= 8; } //wrap around so we never shift over a byte length
             }
 
-            bytes.add(b);
+            bytes[length++] = b;
         }
 
-        return bytes;
+        return length == bytes.length? bytes:Arrays.copyOf(bytes, length);
     }
 
     private static int precisionBits(int precision) {
@@ -193,4 +247,14 @@ public class Evolis extends ImageConverter {
     private static byte byteValue(float value, int precision) {
         return (byte)(value * (precision - 1));
     }
+
+    private static class OverlayMask {
+        final PixelGrid mask;
+        final long timestamp;
+
+        OverlayMask(PixelGrid mask, long timestamp) {
+            this.mask = mask;
+            this.timestamp = timestamp;
+        }
+    }
 }
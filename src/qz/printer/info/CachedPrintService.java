@@ -8,7 +8,7 @@ import javax.print.attribute.AttributeSet;
 import javax.print.attribute.PrintServiceAttribute;
 import javax.print.attribute.PrintServiceAttributeSet;
 import javax.print.event.PrintServiceAttributeListener;
-import java.util.HashMap;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Supplier;
 
 /**
@@ -24,13 +24,19 @@ public class CachedPrintService implements PrintService {
     private final long lifespan;
     private final CachedObject<String> cachedName;
     private final CachedObject<PrintServiceAttributeSet> cachedAttributeSet;
-    private final HashMap<Class<?>, CachedObject<?>> cachedAttributes = new HashMap<>();
+    private final ConcurrentHashMap<Class<?>, CachedObject<?>> cachedAttributes = new ConcurrentHashMap<>();
 
     public CachedPrintService(PrintService printService, long lifespan) {
         this.printService = printService;
         this.lifespan = lifespan;
         cachedName = new CachedObject<>(this.printService::getName, lifespan);
         cachedAttributeSet = new CachedObject<>(this.printService::getAttributes, lifespan);
+
+        // names and attributes are read constantly, serve the last ones while they refresh
+        cachedName.setRefreshAhead(true);
+        cachedName.setMaxStaleness(lifespan);
+        cachedAttributeSet.setRefreshAhead(true);
+        cachedAttributeSet.setMaxStaleness(lifespan);
     }
 
     public CachedPrintService(PrintService printService) {
@@ -68,12 +74,11 @@ public class CachedPrintService implements PrintService {
 
     @Override
     public <T extends PrintServiceAttribute> T getAttribute(Class<T> category) {
-        if (!cachedAttributes.containsKey(category)) {
+        CachedObject<?> cachedObject = cachedAttributes.computeIfAbsent(category, c -> {
             Supplier<T> supplier = () -> printService.getAttribute(category);
-            CachedObject<T> cachedObject = new CachedObject<>(supplier, lifespan);
-            cachedAttributes.put(category, cachedObject);
-        }
-        return category.cast(cachedAttributes.get(category).get());
+            return new CachedObject<>(supplier, lifespan);
+        });
+        return category.cast(cachedObject.get());
     }
 
     @Override
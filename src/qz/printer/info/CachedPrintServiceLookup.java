@@ -1,9 +1,13 @@
 package qz.printer.info;
 
 import qz.common.CachedObject;
+import qz.utils.SystemUtilities;
 
 import javax.print.PrintService;
 import javax.print.PrintServiceLookup;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * PrintService[] cache to workaround JDK-7001133
@@ -14,11 +18,69 @@ public class CachedPrintServiceLookup {
     private static final CachedObject<CachedPrintService> cachedDefault = new CachedObject<>(CachedPrintServiceLookup::wrapDefaultPrintService);
     private static final CachedObject<CachedPrintService[]> cachedPrintServices = new CachedObject<>(CachedPrintServiceLookup::wrapPrintServices);
 
+    // How long past their lifespan printers may still be listed while they're looked up again in the background
+    private static final long MAX_STALENESS = 30000;
+    // Lifespan of the printer listing while CUPS configuration changes are being watched
+    private static final long WATCHED_LIFESPAN = 300000;
+
+    private static CupsConfigWatcher configWatcher;
+    private static final List<Runnable> invalidationListeners = new CopyOnWriteArrayList<>();
+
     // Keep CachedPrintService object references between calls to supplier
-    private static CachedPrintService[] cachedPrintServicesCopy = {};
+    private static volatile CachedPrintService[] cachedPrintServicesCopy = {};
 
     static {
         setLifespan(CachedObject.DEFAULT_LIFESPAN);
+
+        // native enumeration can take seconds, don't make every caller wait for it
+        cachedDefault.setRefreshAhead(true);
+        cachedDefault.setMaxStaleness(MAX_STALENESS);
+        cachedPrintServices.setRefreshAhead(true);
+        cachedPrintServices.setMaxStaleness(MAX_STALENESS);
+
+        if (SystemUtilities.isLinux()) {
+            watchConfig(CupsConfigWatcher.DEFAULT_CONFIG_DIR);
+        }
+    }
+
+    /**
+     * Drops the cached listings as soon as printers in {@code configDir} change, and only re-lists them on a long
+     * timer otherwise.
+     *
+     * @return If changes are being watched
+     */
+    static synchronized boolean watchConfig(Path configDir) {
+        if (configWatcher != null) {
+            configWatcher.stop();
+        }
+
+        configWatcher = new CupsConfigWatcher(configDir, CachedPrintServiceLookup::invalidate);
+        if (configWatcher.start()) {
+            setLifespan(WATCHED_LIFESPAN);
+            return true;
+        }
+
+        configWatcher = null;
+        setLifespan(CachedObject.DEFAULT_LIFESPAN);
+        return false;
+    }
+
+    /**
+     * Forces the next lookup to list printers again
+     */
+    public static void invalidate() {
+        cachedPrintServices.invalidate();
+        cachedDefault.invalidate();
+        for(Runnable listener : invalidationListeners) {
+            listener.run();
+        }
+    }
+
+    /**
+     * Runs {@code listener} whenever {@link #invalidate()} is, so information derived from printers can be dropped too
+     */
+    public static void addInvalidationListener(Runnable listener) {
+        invalidationListeners.add(listener);
     }
 
     public static PrintService lookupDefaultPrintService() {
@@ -34,6 +96,13 @@ public class CachedPrintServiceLookup {
         return cachedPrintServices.get();
     }
 
+    /**
+     * @return Cache and load time statistics of the printer lookup, for logging
+     */
+    public static String getStats() {
+        return cachedPrintServices.getStats();
+    }
+
     private static CachedPrintService wrapDefaultPrintService() {
         PrintService javaxPrintService = PrintServiceLookup.lookupDefaultPrintService();
         // CachedObject's supplier returns null
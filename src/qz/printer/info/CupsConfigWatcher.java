@@ -0,0 +1,155 @@
+package qz.printer.info;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Watches the CUPS configuration for printers being added, removed or modified, so cached printer listings can be
+ * dropped as soon as they change rather than on a timer.
+ * <p/>
+ * CUPS rewrites <code>printers.conf</code> (and <code>classes.conf</code>) after any queue change, and adds or
+ * removes the queue's PPD in <code>ppd/</code> right away.  Bursts of events are coalesced into a single callback.
+ */
+public class CupsConfigWatcher {
+    private static final Logger log = LogManager.getLogger(CupsConfigWatcher.class);
+
+    public static final Path DEFAULT_CONFIG_DIR = Paths.get("/etc/cups");
+    private static final String PPD_DIR = "ppd";
+    private static final long SETTLE_TIME = 250; // millis
+
+    private final Path configDir;
+    private final Runnable onChange;
+
+    private WatchService watchService;
+    private Thread watchThread;
+
+    /**
+     * @param configDir CUPS configuration directory, normally {@link #DEFAULT_CONFIG_DIR}
+     * @param onChange  Called from the watch thread after the printer configuration changes
+     */
+    public CupsConfigWatcher(Path configDir, Runnable onChange) {
+        this.configDir = configDir.toAbsolutePath().normalize();
+        this.onChange = onChange;
+    }
+
+    /**
+     * @return If the configuration is now being watched
+     */
+    public synchronized boolean start() {
+        if (watchThread != null && watchThread.isAlive()) {
+            return true;
+        }
+        if (!Files.isDirectory(configDir)) {
+            log.debug("CUPS configuration {} not found, printer changes won't be watched", configDir);
+            return false;
+        }
+
+        try {
+            watchService = configDir.getFileSystem().newWatchService();
+            register(configDir);
+            if (Files.isDirectory(configDir.resolve(PPD_DIR))) {
+                register(configDir.resolve(PPD_DIR));
+            }
+        }
+        catch(IOException e) {
+            log.warn("Unable to watch CUPS configuration {}", configDir, e);
+            stop();
+            return false;
+        }
+
+        watchThread = new Thread(this::watch, "cups-config-watcher");
+        watchThread.setDaemon(true);
+        watchThread.start();
+
+        log.debug("Watching {} for printer changes", configDir);
+        return true;
+    }
+
+    public synchronized void stop() {
+        if (watchService != null) {
+            try { watchService.close(); } catch(IOException ignore) {}
+            watchService = null;
+        }
+        if (watchThread != null) {
+            watchThread.interrupt();
+            watchThread = null;
+        }
+    }
+
+    private void register(Path dir) throws IOException {
+        dir.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_DELETE, StandardWatchEventKinds.ENTRY_MODIFY);
+    }
+
+    private void watch() {
+        WatchService service = watchService;
+        try {
+            while(!Thread.currentThread().isInterrupted()) {
+                boolean changed = processEvents(service.take());
+
+                // collect the rest of the burst before calling back
+                WatchKey next;
+                while((next = service.poll(SETTLE_TIME, TimeUnit.MILLISECONDS)) != null) {
+                    changed |= processEvents(next);
+                }
+
+                if (changed) {
+                    log.debug("CUPS printer configuration changed");
+                    try {
+                        onChange.run();
+                    }
+                    catch(RuntimeException e) {
+                        log.warn("Failed to handle CUPS printer configuration change", e);
+                    }
+                }
+            }
+        }
+        catch(InterruptedException | ClosedWatchServiceException ignore) {}
+
+        log.debug("Stopped watching {} for printer changes", configDir);
+    }
+
+    /**
+     * @return If any of the events were for the printer configuration
+     */
+    private boolean processEvents(WatchKey key) {
+        Path dir = (Path)key.watchable();
+        boolean changed = false;
+
+        for(WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                changed = true;
+                continue;
+            }
+
+            String name = event.context().toString();
+            if (dir.equals(configDir)) {
+                if (name.equals(PPD_DIR) && event.kind() == StandardWatchEventKinds.ENTRY_CREATE) {
+                    try {
+                        register(configDir.resolve(PPD_DIR));
+                    }
+                    catch(IOException e) {
+                        log.warn("Unable to watch {}", configDir.resolve(PPD_DIR), e);
+                    }
+                    changed = true;
+                } else if (isPrinterConfig(name)) {
+                    changed = true;
+                }
+            } else {
+                // anything in ppd/
+                changed = true;
+            }
+        }
+
+        key.reset();
+        return changed;
+    }
+
+    private static boolean isPrinterConfig(String name) {
+        // CUPS writes the new file alongside as ".N" before renaming it into place
+        return name.startsWith("printers.conf") || name.startsWith("classes.conf");
+    }
+}
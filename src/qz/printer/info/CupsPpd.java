@@ -0,0 +1,103 @@
+package qz.printer.info;
+
+import javax.print.attribute.standard.PrinterResolution;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The few values read from a CUPS .ppd file, cached by path until the file's modified time or size changes
+ */
+class CupsPpd {
+    private static final ConcurrentHashMap<Path,CupsPpd> cache = new ConcurrentHashMap<>();
+
+    private final long modified;
+    private final long size;
+
+    private PrinterResolution defaultResolution;
+    private final List<PrinterResolution> resolutions = new ArrayList<>();
+    private boolean airPrint;
+    private String pcFileName;
+
+    private CupsPpd(long modified, long size) {
+        this.modified = modified;
+        this.size = size;
+    }
+
+    /**
+     * @return The parsed PPD, reusing the last parse if the file hasn't changed since
+     */
+    static CupsPpd read(Path path) throws IOException {
+        BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+        long modified = attributes.lastModifiedTime().toMillis();
+
+        CupsPpd cached = cache.get(path);
+        if (cached != null && cached.modified == modified && cached.size == attributes.size()) {
+            return cached;
+        }
+
+        CupsPpd ppd = new CupsPpd(modified, attributes.size());
+        // PPDs are ASCII, but text values may be in any encoding
+        try(BufferedReader buffer = Files.newBufferedReader(path, StandardCharsets.ISO_8859_1)) {
+            String line;
+            while((line = buffer.readLine()) != null) {
+                ppd.parseLine(line);
+            }
+        }
+
+        cache.put(path, ppd);
+        return ppd;
+    }
+
+    private void parseLine(String line) {
+        if (line.contains("*DefaultResolution:")) {
+            // Parse default printer resolution
+            PrinterResolution defaultRes = CupsPrinterMap.parseDefaultResolution(line);
+            if (defaultRes != null) {
+                defaultResolution = defaultRes;
+                resolutions.add(defaultRes);
+            }
+        } else if (line.contains("/HWResolution[")) {
+            PrinterResolution additionalRes = CupsPrinterMap.parseAdditionalResolution(line);
+            if (additionalRes != null) {
+                resolutions.add(additionalRes);
+            }
+        } else if (line.contains("*APAirPrint:")) {
+            // Detect AirPrint driver
+            String[] split = line.split("\\*APAirPrint:");
+            String value = split[split.length - 1].replace("\"", "").trim();
+            if (Boolean.parseBoolean(value)) {
+                airPrint = true;
+            }
+        } else if (pcFileName == null && line.contains("*PCFileName:")) {
+            String[] split = line.split("\\*PCFileName:");
+            pcFileName = split[split.length - 1].replace("\"", "").trim();
+        }
+    }
+
+    PrinterResolution getDefaultResolution() {
+        return defaultResolution;
+    }
+
+    /**
+     * @return Every resolution listed, in file order
+     */
+    List<PrinterResolution> getResolutions() {
+        return Collections.unmodifiableList(resolutions);
+    }
+
+    boolean isAirPrint() {
+        return airPrint;
+    }
+
+    String getPcFileName() {
+        return pcFileName;
+    }
+}
@@ -2,27 +2,106 @@ package qz.printer.info;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import qz.printer.status.CupsUtils;
 import qz.utils.ShellUtilities;
 import qz.utils.SystemUtilities;
 
 import javax.print.PrintService;
 import javax.print.attribute.standard.PrinterResolution;
-import java.io.BufferedReader;
-import java.io.File;
-import java.io.FileReader;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.*;
 
 public class CupsPrinterMap extends NativePrinterMap {
     private static final String DEFAULT_CUPS_DRIVER = "TEXTONLY.ppd";
     private static final String AIRPRINT_DRIVER = "AirPrint";
     private static final Logger log = LogManager.getLogger(CupsPrinterMap.class);
+    private static final String[] IPP_ATTRIBUTES = {"printer-name", "printer-info", "device-uri"};
+    private static final Path PPD_DIR = CupsConfigWatcher.DEFAULT_CONFIG_DIR.resolve("ppd");
+
     private Map<NativePrinter, List<PrinterResolution>> resolutionMap = new HashMap<>();
 
     public synchronized NativePrinterMap putAll(boolean exhaustive, PrintService... services) {
         ArrayList<PrintService> missing = findMissing(exhaustive, services);
         if (missing.isEmpty()) { return this; }
 
+        List<NativePrinter> printers = listPrinters();
+        if (printers == null) {
+            printers = listPrintersLpstat();
+        }
+
+        for(NativePrinter printer : printers) {
+            for (PrintService service : missing) {
+                if ((SystemUtilities.isMac() && printer.getDescription().equals(service.getName()))
+                        || (SystemUtilities.isLinux() && printer.getPrinterId().equals(service.getName()))) {
+                    printer.setPrintService(service);
+                    missing.remove(service);
+                    break;
+                }
+            }
+
+            if (!printer.getPrintService().isNull()) {
+                put(printer.getPrinterId(), printer);
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Lists all queues with a single IPP request
+     *
+     * @return The printers, or {@code null} if CUPS can't be queried directly
+     */
+    private List<NativePrinter> listPrinters() {
+        try {
+            List<Map<String,String>> records = CupsUtils.listPrinters(IPP_ATTRIBUTES);
+            if (records != null) {
+                List<NativePrinter> printers = new ArrayList<>();
+                for(Map<String,String> record : records) {
+                    NativePrinter printer = fromIpp(record, PPD_DIR);
+                    if (printer != null) {
+                        printers.add(printer);
+                    }
+                }
+                return printers;
+            }
+            log.warn("Unable to list printers through CUPS, falling back to lpstat");
+        }
+        catch(RuntimeException | LinkageError e) {
+            log.warn("Unable to list printers through CUPS, falling back to lpstat", e);
+        }
+
+        return null;
+    }
+
+    /**
+     * Creates a printer from its CUPS-Get-Printers attributes
+     *
+     * @param ppdDir Where CUPS keeps queue PPDs, named after the queue
+     */
+    static NativePrinter fromIpp(Map<String,String> record, Path ppdDir) {
+        String name = record.get("printer-name");
+        if (name == null || name.isEmpty()) {
+            return null;
+        }
+
+        NativePrinter printer = new NativePrinter(name);
+        // Description must be exact per #1463
+        printer.setDescription(record.get("printer-info"));
+        printer.setListedConnection(record.get("device-uri"));
+
+        Path ppd = ppdDir.resolve(name + ".ppd");
+        printer.setDriverFile(Files.isRegularFile(ppd)? ppd.toString():null);
+
+        return printer;
+    }
+
+    private List<NativePrinter> listPrintersLpstat() {
+        List<NativePrinter> printers = new ArrayList<>();
+
         String output = "\n" + ShellUtilities.executeRaw(new String[] {"lpstat", "-l", "-p"});
         String[] devices = output.split("[\\r\\n]printer ");
 
@@ -53,21 +132,10 @@ public class CupsPrinterMap extends NativePrinterMap {
                     }
                 }
             }
-
-            for (PrintService service : missing) {
-                if ((SystemUtilities.isMac() && printer.getDescription().equals(service.getName()))
-                        || (SystemUtilities.isLinux() && printer.getPrinterId().equals(service.getName()))) {
-                    printer.setPrintService(service);
-                    missing.remove(service);
-                    break;
-                }
-            }
-
-            if (!printer.getPrintService().isNull()) {
-                put(printer.getPrinterId(), printer);
-            }
+            printers.add(printer);
         }
-        return this;
+
+        return printers;
     }
 
     synchronized void addResolution(NativePrinter printer, PrinterResolution resolution) {
@@ -81,6 +149,11 @@ public class CupsPrinterMap extends NativePrinterMap {
         }
     }
 
+    @Override
+    synchronized void forgetAttributes(NativePrinter printer) {
+        resolutionMap.remove(printer);
+    }
+
     synchronized List<PrinterResolution> getResolutions(NativePrinter printer) {
         if(resolutionMap.get(printer) == null) {
             fillAttributes(printer);
@@ -132,54 +205,26 @@ public class CupsPrinterMap extends NativePrinterMap {
     }
 
     synchronized void fillAttributes(NativePrinter printer) {
-        String options = ShellUtilities.executeRaw("lpoptions", "-p", printer.getPrinterId());
-        String connection = null;
-        int start;
-        int end;
-        String section;
-        if((start = options.indexOf("device-uri=")) != -1) {
-            section = options.substring(start);
-            if((end = section.indexOf(' ')) > 0) {
-                connection = section.substring(section.indexOf("=") + 1, end);
-            } else {
-                connection = section.substring(section.indexOf("=") + 1);
-            }
+        if (!printer.isConnectionListed()) {
+            printer.setConnection(lpoptionsConnection(printer));
         }
-        printer.setConnection(connection);
 
         if (!printer.getDriverFile().isNull()) {
-            File ppdFile = new File(printer.getDriverFile().value());
             try {
-                BufferedReader buffer = new BufferedReader(new FileReader(ppdFile));
-                String line;
-
-                while((line = buffer.readLine()) != null) {
-                    if (line.contains("*DefaultResolution:")) {
-                        // Parse default printer resolution
-                        PrinterResolution defaultRes = parseDefaultResolution(line);
-                        if(defaultRes != null) {
-                            printer.setResolution(defaultRes);
-                            addResolution(printer, defaultRes);
-                        }
-                    } else if(line.contains("/HWResolution[")) {
-                        PrinterResolution additionalRes = parseAdditionalResolution(line);
-                        if(additionalRes != null) {
-                            addResolution(printer, additionalRes);
-                        }
-                    } else if(line.contains("*APAirPrint:")) {
-                        // Detect AirPrint driver
-                        String[] split = line.split("\\*APAirPrint:");
-                        String value = split[split.length - 1].replace("\"", "").trim();
-                        if(Boolean.parseBoolean(value)) {
-                            printer.setDriver(AIRPRINT_DRIVER);
-                        }
-                    } else if(printer.getDriver().isNull() && line.contains("*PCFileName:")) {
-                        // Parse driver name if not found through other means
-                        String[] split = line.split("\\*PCFileName:");
-                        printer.setDriver(split[split.length - 1].replace("\"", "").trim());
-                    }
+                CupsPpd ppd = CupsPpd.read(Paths.get(printer.getDriverFile().value()));
+                if (ppd.getDefaultResolution() != null) {
+                    printer.setResolution(ppd.getDefaultResolution());
+                }
+                for(PrinterResolution resolution : ppd.getResolutions()) {
+                    addResolution(printer, resolution);
                 }
-            } catch(IOException e) {
+                if (ppd.isAirPrint()) {
+                    printer.setDriver(AIRPRINT_DRIVER);
+                } else if (ppd.getPcFileName() != null) {
+                    // Parse driver name if not found through other means
+                    printer.setDriver(ppd.getPcFileName());
+                }
+            } catch(IOException | InvalidPathException e) {
                 log.error("Something went wrong while reading " + printer.getDriverFile());
             }
         }
@@ -190,4 +235,21 @@ public class CupsPrinterMap extends NativePrinterMap {
             addResolution(printer, null); // create empty list
         }
     }
+
+    private static String lpoptionsConnection(NativePrinter printer) {
+        String options = ShellUtilities.executeRaw("lpoptions", "-p", printer.getPrinterId());
+        String connection = null;
+        int start;
+        int end;
+        String section;
+        if((start = options.indexOf("device-uri=")) != -1) {
+            section = options.substring(start);
+            if((end = section.indexOf(' ')) > 0) {
+                connection = section.substring(section.indexOf("=") + 1, end);
+            } else {
+                connection = section.substring(section.indexOf("=") + 1);
+            }
+        }
+        return connection;
+    }
 }
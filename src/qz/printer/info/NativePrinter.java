@@ -2,17 +2,22 @@ package qz.printer.info;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.codehaus.jettison.json.JSONException;
 import qz.utils.SystemUtilities;
 
 import javax.print.PrintService;
 import javax.print.attribute.standard.Media;
 import javax.print.attribute.standard.PrinterName;
 import javax.print.attribute.standard.PrinterResolution;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 
 public class NativePrinter {
     private static final Logger log = LogManager.getLogger(NativePrinter.class);
+
+    // how long jobs and listings share what the driver reported before asking it again, in milliseconds
+    public static final long CAPABILITIES_TTL = 60000;
     /**
      * Simple object wrapper allowing lazy fetching of values
      * @param <T>
@@ -73,6 +78,10 @@ public class NativePrinter {
     private PrinterProperty<String> connection;
     private PrinterProperty<PrinterResolution> resolution;
     private PrinterProperty<String> driverFile;
+    private volatile PrinterCapabilities capabilities;
+    // connection given by the printer listing, which isn't read again when the capabilities are invalidated
+    private volatile boolean connectionListed;
+    private volatile String listedConnection;
 
     public NativePrinter(String printerId) {
         this.printerId = printerId;
@@ -130,6 +139,19 @@ public class NativePrinter {
         this.connection.set(connection);
     }
 
+    /**
+     * Sets a connection that came with the printer listing, kept when the capabilities are invalidated
+     */
+    void setListedConnection(String connection) {
+        this.listedConnection = connection;
+        this.connectionListed = true;
+        setConnection(connection);
+    }
+
+    boolean isConnectionListed() {
+        return connectionListed;
+    }
+
     public String getConnection() {
         if (!connection.isSet()) {
             getDriverAttributes(this);
@@ -142,7 +164,13 @@ public class NativePrinter {
     }
 
     public void setPrintService(PrintService printService) {
+        PrintService previous = this.printService.value();
         this.printService.set(printService);
+        if (previous != null && previous != printService) {
+            // A new service for the same name, what it supports may have changed too.  getCapabilities() gathers again
+            // for the new service; the printer map calls this while holding its own lock, so don't take ours here.
+            capabilities = null;
+        }
     }
 
     public String getPrinterId() {
@@ -171,13 +199,95 @@ public class NativePrinter {
     }
 
     public List<PrinterResolution> getResolutions() {
-        PrintService ps = getPrintService().value();
+        return getResolutions(true);
+    }
+
+    /**
+     * @param allowSnapshot Whether the resolutions saved by the last run may be used while printers are being listed again
+     */
+    public List<PrinterResolution> getResolutions(boolean allowSnapshot) {
+        // drivers can take seconds to answer, use the last run's answer until printers have been listed again
+        PrinterSnapshot snapshot = allowSnapshot && capabilities == null? PrinterSnapshot.getWarm():null;
+        if (snapshot != null) {
+            try {
+                List<PrinterResolution> saved = snapshot.getResolutions(getName());
+                if (saved != null && !saved.isEmpty()) {
+                    return saved;
+                }
+            }
+            catch(JSONException e) {
+                log.warn("Unable to read saved resolutions of {}", getName(), e);
+            }
+        }
+
+        return getCapabilities().getResolutions();
+    }
+
+    /**
+     * Returns the driver, connection, resolutions and media of this printer, gathered from the driver the first time
+     * and shared until the printer changes or they're {@link #CAPABILITIES_TTL} old, see {@link #invalidateCapabilities()}.
+     */
+    public PrinterCapabilities getCapabilities() {
+        return getCapabilities(CAPABILITIES_TTL);
+    }
+
+    /**
+     * @param maxAge Milliseconds the shared capabilities may be reused for before the driver is asked again
+     */
+    public PrinterCapabilities getCapabilities(long maxAge) {
+        PrinterCapabilities current = capabilities;
+        PrintService service = printService.value();
+        if (current == null || current.getService() != service || current.isOlderThan(maxAge)) {
+            synchronized(this) {
+                current = capabilities;
+                if (current != null && current.getService() == service && current.isOlderThan(maxAge)) {
+                    // trays, media or the driver may have changed since, read them all again
+                    invalidateCapabilities();
+                    current = null;
+                }
+                if (current == null || current.getService() != service) {
+                    long start = System.currentTimeMillis();
+                    // CUPS reads the default resolution from the PPD along with the driver
+                    PrinterProperty<String> driver = getDriver();
+                    PrinterResolution defaultResolution = getResolution().value();
+                    List<PrinterResolution> resolutions = querySupportedResolutions(service);
+                    Media[] media = (Media[])service.getSupportedAttributeValues(Media.class, null, null);
+
+                    current = new PrinterCapabilities(service, driver.value(), connection.value(), defaultResolution, resolutions, media, start);
+                    capabilities = current;
+                    log.debug("Gathered capabilities of '{}' in {}ms", printerId, System.currentTimeMillis() - start);
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Drops the cached capabilities and driver details, e.g. after the printer configuration changes, so they're
+     * read from the driver again on next use.  A connection that came with the printer listing is kept.
+     */
+    public synchronized void invalidateCapabilities() {
+        boolean gathered = driver.isSet();
+        capabilities = null;
+        driver = new PrinterProperty<>();
+        connection = new PrinterProperty<>();
+        if (connectionListed) {
+            connection.set(listedConnection);
+        }
+        resolution = new PrinterProperty<>();
+        if (gathered) {
+            NativePrinterMap.getInstance().forgetAttributes(this);
+        }
+    }
+
+    private List<PrinterResolution> querySupportedResolutions(PrintService ps) {
         PrinterResolution[] resSupport = (PrinterResolution[])ps.getSupportedAttributeValues(PrinterResolution.class, ps.getSupportedDocFlavors()[0], null);
         if (resSupport == null || resSupport.length == 0) {
             NativePrinterMap printerMap = NativePrinterMap.getInstance();
             // CUPS doesn't report resolutions properly, instead return the values scraped from console
             if(printerMap instanceof CupsPrinterMap) {
-                return ((CupsPrinterMap)printerMap).getResolutions(this);
+                List<PrinterResolution> scraped = ((CupsPrinterMap)printerMap).getResolutions(this);
+                return scraped == null? null:new ArrayList<>(scraped);
             }
             resSupport = new PrinterResolution[]{ getResolution().value() };
         }
@@ -5,20 +5,30 @@ import org.apache.logging.log4j.Logger;
 import qz.utils.SystemUtilities;
 
 import javax.print.PrintService;
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.Map;
+import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiFunction;
+import java.util.function.Function;
 
 public abstract class NativePrinterMap extends ConcurrentHashMap<String, NativePrinter> {
     private static final Logger log = LogManager.getLogger(NativePrinterMap.class);
 
     private static NativePrinterMap instance;
 
+    // bumped on every change through changed(), so the index knows to rebuild
+    private final AtomicLong version = new AtomicLong();
+    private volatile PrinterIndex index;
+
     public abstract NativePrinterMap putAll(boolean exhaustive, PrintService... services);
 
     abstract void fillAttributes(NativePrinter printer);
 
+    /**
+     * Drops anything kept from {@link #fillAttributes(NativePrinter)} outside of the printer itself
+     */
+    void forgetAttributes(NativePrinter printer) {}
+
     public static NativePrinterMap getInstance() {
         if (instance == null) {
             switch(SystemUtilities.getOs()) {
@@ -33,31 +43,170 @@ public abstract class NativePrinterMap extends ConcurrentHashMap<String, NativeP
     }
 
     public String lookupPrinterId(String description) {
-        for(Map.Entry<String,NativePrinter> entry : entrySet()) {
-            NativePrinter info = entry.getValue();
-            if (description.equals(info.getPrintService().value().getName())) {
-                return entry.getKey();
-            }
+        NativePrinter printer = getIndex().get(description);
+        if (printer != null) {
+            return printer.getPrinterId();
         }
         log.warn("Could not find printerId for " + description);
         return null;
     }
 
+    /**
+     * Finds the printer closest to {@code search}: a case-insensitive exact name, then one beginning with it, then
+     * one containing it.
+     */
+    public NativePrinter search(String search) {
+        return getIndex().search(search);
+    }
+
+    private PrinterIndex getIndex() {
+        PrinterIndex current = index;
+        if (current == null || current.getVersion() != version.get()) {
+            synchronized(version) {
+                current = index;
+                long latest = version.get();
+                if (current == null || current.getVersion() != latest) {
+                    current = new PrinterIndex(latest, values());
+                    index = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Marks the index as stale, every method changing the map must call this after the change
+     */
+    private void changed() {
+        version.incrementAndGet();
+    }
+
+    @Override
+    public NativePrinter put(String key, NativePrinter value) {
+        NativePrinter replaced = super.put(key, value);
+        changed();
+        return replaced;
+    }
+
+    @Override
+    public NativePrinter putIfAbsent(String key, NativePrinter value) {
+        NativePrinter existing = super.putIfAbsent(key, value);
+        if (existing == null) { changed(); }
+        return existing;
+    }
+
+    @Override
+    public void putAll(Map<? extends String,? extends NativePrinter> map) {
+        super.putAll(map);
+        changed();
+    }
+
+    @Override
+    public NativePrinter remove(Object key) {
+        NativePrinter removed = super.remove(key);
+        if (removed != null) { changed(); }
+        return removed;
+    }
+
+    @Override
+    public boolean remove(Object key, Object value) {
+        boolean removed = super.remove(key, value);
+        if (removed) { changed(); }
+        return removed;
+    }
+
+    @Override
+    public NativePrinter replace(String key, NativePrinter value) {
+        NativePrinter replaced = super.replace(key, value);
+        if (replaced != null) { changed(); }
+        return replaced;
+    }
+
+    @Override
+    public boolean replace(String key, NativePrinter oldValue, NativePrinter newValue) {
+        boolean replaced = super.replace(key, oldValue, newValue);
+        if (replaced) { changed(); }
+        return replaced;
+    }
+
+    @Override
+    public void replaceAll(BiFunction<? super String,? super NativePrinter,? extends NativePrinter> function) {
+        super.replaceAll(function);
+        changed();
+    }
+
+    @Override
+    public NativePrinter computeIfAbsent(String key, Function<? super String,? extends NativePrinter> mappingFunction) {
+        NativePrinter value = super.computeIfAbsent(key, mappingFunction);
+        changed();
+        return value;
+    }
+
+    @Override
+    public NativePrinter computeIfPresent(String key, BiFunction<? super String,? super NativePrinter,? extends NativePrinter> remappingFunction) {
+        NativePrinter value = super.computeIfPresent(key, remappingFunction);
+        changed();
+        return value;
+    }
+
+    @Override
+    public NativePrinter compute(String key, BiFunction<? super String,? super NativePrinter,? extends NativePrinter> remappingFunction) {
+        NativePrinter value = super.compute(key, remappingFunction);
+        changed();
+        return value;
+    }
+
+    @Override
+    public NativePrinter merge(String key, NativePrinter value, BiFunction<? super NativePrinter,? super NativePrinter,? extends NativePrinter> remappingFunction) {
+        NativePrinter merged = super.merge(key, value, remappingFunction);
+        changed();
+        return merged;
+    }
+
+    @Override
+    public void clear() {
+        super.clear();
+        changed();
+    }
+
+    /**
+     * Read-only, changes must go through the map so the index sees them
+     */
+    @Override
+    public Collection<NativePrinter> values() {
+        return Collections.unmodifiableCollection(super.values());
+    }
+
+    /**
+     * Read-only, changes must go through the map so the index sees them
+     */
+    @Override
+    public Set<Map.Entry<String,NativePrinter>> entrySet() {
+        return Collections.unmodifiableSet(super.entrySet());
+    }
+
     /**
      * WARNING: Despite the function's name, if <code>exhaustive</code> is true, it will treat the listing as exhaustive and remove
      * any PrintServices that are not part of this HashMap.
      */
     public ArrayList<PrintService> findMissing(boolean exhaustive, PrintService[] services) {
-        ArrayList<PrintService> serviceList = new ArrayList<>(Arrays.asList(services)); // shrinking list drastically improves performance
+        // Java's `PrintService.equals(o)` compares names, so services can be matched by name
+        LinkedHashMap<String,PrintService> serviceList = new LinkedHashMap<>();
+        ArrayList<PrintService> duplicates = new ArrayList<>();
+        for(PrintService service : services) {
+            if (serviceList.putIfAbsent(service.getName(), service) != null) {
+                duplicates.add(service);
+            }
+        }
 
         for(NativePrinter printer : values()) {
-            int index = serviceList.indexOf(printer.getPrintService());
-            if (index >= 0) {
+            String name = printer.getName();
+            PrintService match = name == null? null:serviceList.remove(name);
+            if (match != null) {
                 // Java's `PrintService.equals(o)` method uses getName().equals(). This causes issues if a stale PrintService has been replaced
                 // by a new PrintService of the same name. For that reason, we always refresh the PrintService reference in NativePrinter.
                 // See: https://github.com/qzind/tray/issues/1259
-                printer.setPrintService(serviceList.get(index));
-                serviceList.remove(printer.getPrintService()); // existing match
+                printer.setPrintService(match); // existing match
             } else {
                 if(exhaustive) {
                     printer.setOutdated(true); // no matches, mark to be removed
@@ -73,24 +222,16 @@ public abstract class NativePrinterMap extends ConcurrentHashMap<String, NativeP
         }
 
         // any remaining services are new/missing
-        return serviceList;
+        ArrayList<PrintService> missing = new ArrayList<>(serviceList.values());
+        missing.addAll(duplicates);
+        return missing;
     }
 
     public boolean contains(PrintService service) {
-        for (NativePrinter printer : values()) {
-            if (printer.getPrintService().equals(service)) {
-                return true;
-            }
-        }
-        return false;
+        return get(service) != null;
     }
 
     public NativePrinter get(PrintService service) {
-        for (NativePrinter printer : values()) {
-            if (printer.getPrintService().equals(service)) {
-                return printer;
-            }
-        }
-        return null;
+        return service == null? null:getIndex().get(service.getName());
     }
 }
@@ -0,0 +1,74 @@
+package qz.printer.info;
+
+import javax.print.PrintService;
+import javax.print.attribute.standard.Media;
+import javax.print.attribute.standard.PrinterResolution;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * What a printer's driver reported about it, gathered in one pass and shared by listings and print jobs until the
+ * printer changes or they're too old.
+ *
+ * See also <code>NativePrinter.getCapabilities()</code>
+ */
+public class PrinterCapabilities {
+    private final PrintService service;
+    private final String driver;
+    private final String connection;
+    private final PrinterResolution defaultResolution;
+    private final List<PrinterResolution> resolutions;
+    private final Media[] media;
+    private final long gathered;
+
+    PrinterCapabilities(PrintService service, String driver, String connection, PrinterResolution defaultResolution,
+                        List<PrinterResolution> resolutions, Media[] media, long gathered) {
+        this.service = service;
+        this.driver = driver;
+        this.connection = connection;
+        this.defaultResolution = defaultResolution;
+        this.resolutions = resolutions == null? Collections.emptyList():Collections.unmodifiableList(resolutions);
+        this.media = media == null? new Media[0]:media;
+        this.gathered = gathered;
+    }
+
+    /**
+     * @return If these were gathered at least {@code maxAge} milliseconds ago
+     */
+    boolean isOlderThan(long maxAge) {
+        return System.currentTimeMillis() - gathered >= maxAge;
+    }
+
+    /**
+     * @return The service these capabilities were read from
+     */
+    PrintService getService() {
+        return service;
+    }
+
+    public String getDriver() {
+        return driver;
+    }
+
+    public String getConnection() {
+        return connection;
+    }
+
+    /**
+     * @return The driver's default resolution, or {@code null} if it has none
+     */
+    public PrinterResolution getDefaultResolution() {
+        return defaultResolution;
+    }
+
+    public List<PrinterResolution> getResolutions() {
+        return resolutions;
+    }
+
+    /**
+     * @return Supported trays and paper sizes
+     */
+    public Media[] getMedia() {
+        return media.clone();
+    }
+}
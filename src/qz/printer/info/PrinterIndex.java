@@ -0,0 +1,108 @@
+package qz.printer.info;
+
+import qz.utils.SystemUtilities;
+
+import javax.print.attribute.standard.PrinterName;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Immutable lookup tables over a snapshot of a {@link NativePrinterMap}, rebuilt whenever the map changes.
+ * <p/>
+ * Printers are indexed by their exact service name (which is what {@code PrintService.equals(o)} compares) and by
+ * lowercase name in sorted order for searches.  Search results are remembered until the index is replaced.
+ */
+class PrinterIndex {
+    private static final int MAX_MEMOIZED = 256;
+    private static final NativePrinter NO_MATCH = new NativePrinter("");
+
+    private final long version;
+
+    private final HashMap<String,NativePrinter> byName = new HashMap<>();
+    private final TreeMap<String,NativePrinter> sortedLowerNames = new TreeMap<>();
+
+    private final ConcurrentHashMap<String,NativePrinter> searches = new ConcurrentHashMap<>();
+
+    PrinterIndex(long version, Collection<NativePrinter> printers) {
+        this.version = version;
+
+        for(NativePrinter printer : printers) {
+            String name = printer.getName();
+            if (name == null) { continue; }
+
+            byName.putIfAbsent(name, printer);
+            addLowerName(name, printer);
+
+            if (SystemUtilities.isMac()) {
+                // 1.9 compat: fallback for old style names
+                PrinterName legacy = printer.getLegacyName();
+                if (legacy != null && legacy.getValue() != null) {
+                    addLowerName(legacy.getValue(), printer);
+                }
+            }
+        }
+    }
+
+    private void addLowerName(String name, NativePrinter printer) {
+        sortedLowerNames.putIfAbsent(name.toLowerCase(Locale.ENGLISH), printer);
+    }
+
+    long getVersion() {
+        return version;
+    }
+
+    /**
+     * @return The printer whose service has this exact name
+     */
+    NativePrinter get(String serviceName) {
+        return byName.get(serviceName);
+    }
+
+    /**
+     * Finds the closest printer to {@code search}, see {@link #findClosest(NavigableMap, String)}
+     */
+    NativePrinter search(String search) {
+        NativePrinter found = searches.get(search);
+        if (found == null) {
+            found = findClosest(sortedLowerNames, search.toLowerCase(Locale.ENGLISH));
+            if (found == null) {
+                found = NO_MATCH;
+            }
+
+            if (searches.size() >= MAX_MEMOIZED) {
+                searches.clear();
+            }
+            searches.put(search, found);
+        }
+
+        return found == NO_MATCH? null:found;
+    }
+
+    /**
+     * Finds the closest match to {@code lowerSearch}: a case-insensitive exact name, then the first name in sorted order
+     * beginning with it, then the first name in sorted order containing it.  Shared with {@link PrinterSnapshot} so a
+     * search answers the same whichever is serving it.
+     *
+     * @param sortedLowerNames Lowercase names, sorted
+     */
+    static <T> T findClosest(NavigableMap<String,T> sortedLowerNames, String lowerSearch) {
+        T exact = sortedLowerNames.get(lowerSearch);
+        if (exact != null) {
+            return exact;
+        }
+
+        // names sharing the prefix are sorted directly after it
+        Map.Entry<String,T> begins = sortedLowerNames.ceilingEntry(lowerSearch);
+        if (begins != null && begins.getKey().startsWith(lowerSearch)) {
+            return begins.getValue();
+        }
+
+        for(Map.Entry<String,T> entry : sortedLowerNames.entrySet()) {
+            if (entry.getKey().contains(lowerSearch)) {
+                return entry.getValue();
+            }
+        }
+
+        return null;
+    }
+}
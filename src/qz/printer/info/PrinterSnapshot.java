@@ -0,0 +1,280 @@
+package qz.printer.info;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.codehaus.jettison.json.JSONArray;
+import org.codehaus.jettison.json.JSONException;
+import org.codehaus.jettison.json.JSONObject;
+import qz.common.Constants;
+import qz.utils.FileUtilities;
+import qz.utils.SystemUtilities;
+import qz.utils.WindowsUtilities;
+
+import javax.print.attribute.ResolutionSyntax;
+import javax.print.attribute.standard.PrinterResolution;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.*;
+
+import static com.sun.jna.platform.win32.WinReg.HKEY_CURRENT_USER;
+import static com.sun.jna.platform.win32.WinReg.HKEY_LOCAL_MACHINE;
+
+/**
+ * The printer listing and each printer's details as last seen, saved to the user directory so the first listings
+ * after a restart don't have to wait on printer discovery.
+ * <p/>
+ * A saved snapshot is only used if the platform's printer configuration hasn't changed since it was taken, and only
+ * until it's superseded by a live listing.
+ */
+public class PrinterSnapshot {
+    private static final Logger log = LogManager.getLogger(PrinterSnapshot.class);
+
+    private static final Path SNAPSHOT_FILE = FileUtilities.USER_DIR.resolve("printers.json");
+    private static final String WINDOWS_PRINTERS_KEY = "SYSTEM\\CurrentControlSet\\Control\\Print\\Printers";
+
+    private static final Object lock = new Object();
+    private static volatile boolean read = false;
+    private static volatile PrinterSnapshot warm;
+
+    private final long saved;
+    private final JSONArray printers;
+
+    private PrinterSnapshot(long saved, JSONArray printers) {
+        this.saved = saved;
+        this.printers = printers;
+    }
+
+    /**
+     * @return The snapshot saved by a previous run, or {@code null} if there's none, the printer configuration has
+     * changed since, or it's been superseded
+     */
+    public static PrinterSnapshot getWarm() {
+        if (!read) {
+            synchronized(lock) {
+                if (!read) {
+                    warm = read(SNAPSHOT_FILE, calculateFingerprint());
+                    if (warm != null) {
+                        log.info("Using printer snapshot from {} until printers are listed again", new Date(warm.saved));
+                    }
+                    read = true;
+                }
+            }
+        }
+        return warm;
+    }
+
+    /**
+     * Replaces the saved snapshot with a live listing, and stops serving the old one
+     *
+     * @param details     Printer listing, as returned by <code>printers.details</code>
+     * @param resolutions Supported resolutions of each printer, by name
+     * @return The saved snapshot
+     */
+    public static PrinterSnapshot supersede(JSONArray details, Map<String,List<PrinterResolution>> resolutions) throws JSONException {
+        synchronized(lock) {
+            PrinterSnapshot snapshot = write(SNAPSHOT_FILE, calculateFingerprint(), details, resolutions);
+            read = true;
+            warm = null;
+            return snapshot;
+        }
+    }
+
+    /**
+     * Stops serving the saved snapshot, e.g. after the printer configuration changes
+     */
+    public static void discard() {
+        synchronized(lock) {
+            read = true;
+            warm = null;
+        }
+    }
+
+    static PrinterSnapshot read(Path file, String fingerprint) {
+        if (!Files.exists(file)) {
+            return null;
+        }
+
+        try {
+            JSONObject json = new JSONObject(new String(Files.readAllBytes(file), StandardCharsets.UTF_8));
+            if (!fingerprint.equals(json.optString("fingerprint"))) {
+                log.info("Printer configuration changed since the printer snapshot was saved, ignoring it");
+                return null;
+            }
+            return new PrinterSnapshot(json.getLong("saved"), json.getJSONArray("printers"));
+        }
+        catch(IOException | JSONException e) {
+            log.warn("Unable to read printer snapshot {}", file, e);
+            return null;
+        }
+    }
+
+    static PrinterSnapshot write(Path file, String fingerprint, JSONArray details, Map<String,List<PrinterResolution>> resolutions) throws JSONException {
+        JSONArray printers = new JSONArray();
+        for(int i = 0; i < details.length(); i++) {
+            JSONObject printer = copy(details.getJSONObject(i));
+            List<PrinterResolution> supported = resolutions.get(printer.getString("name"));
+            if (supported != null) {
+                JSONArray densities = new JSONArray();
+                for(PrinterResolution res : supported) {
+                    if (res == null) { continue; }
+                    densities.put(new JSONArray().put(res.getCrossFeedResolution(ResolutionSyntax.DPI)).put(res.getFeedResolution(ResolutionSyntax.DPI)));
+                }
+                printer.put("resolutions", densities);
+            }
+            printers.put(printer);
+        }
+
+        PrinterSnapshot snapshot = new PrinterSnapshot(System.currentTimeMillis(), printers);
+        JSONObject json = new JSONObject();
+        json.put("fingerprint", fingerprint);
+        json.put("saved", snapshot.saved);
+        json.put("printers", printers);
+
+        try {
+            // write aside and move into place so a crash can't leave a partial snapshot behind
+            Path pending = file.resolveSibling(file.getFileName() + ".tmp");
+            Files.write(pending, json.toString().getBytes(StandardCharsets.UTF_8));
+            Files.move(pending, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+        catch(IOException e) {
+            log.warn("Unable to save printer snapshot {}", file, e);
+        }
+
+        return snapshot;
+    }
+
+    /**
+     * @param includeDetails If false, only the printer names are listed
+     * @return The printers as listed by <code>printers.find</code> or <code>printers.details</code>
+     */
+    public JSONArray getPrinters(boolean includeDetails) throws JSONException {
+        JSONArray list = new JSONArray();
+        for(int i = 0; i < printers.length(); i++) {
+            JSONObject printer = printers.getJSONObject(i);
+            if (includeDetails) {
+                JSONObject copy = copy(printer);
+                copy.remove("resolutions");
+                list.put(copy);
+            } else {
+                list.put(new JSONObject().put("name", printer.getString("name")));
+            }
+        }
+        return list;
+    }
+
+    public Set<String> getNames() throws JSONException {
+        Set<String> names = new LinkedHashSet<>();
+        for(int i = 0; i < printers.length(); i++) {
+            names.add(printers.getJSONObject(i).getString("name"));
+        }
+        return names;
+    }
+
+    /**
+     * Finds the printer name closest to {@code query}, matching the same way as {@link NativePrinterMap#search(String)}
+     */
+    public String search(String query) throws JSONException {
+        TreeMap<String,String> sortedLowerNames = new TreeMap<>();
+        for(String name : getNames()) {
+            sortedLowerNames.putIfAbsent(name.toLowerCase(Locale.ENGLISH), name);
+        }
+        return PrinterIndex.findClosest(sortedLowerNames, query.toLowerCase(Locale.ENGLISH));
+    }
+
+    /**
+     * @return The resolutions the named printer supported, or {@code null} if they weren't saved
+     */
+    public List<PrinterResolution> getResolutions(String name) throws JSONException {
+        for(int i = 0; i < printers.length(); i++) {
+            JSONObject printer = printers.getJSONObject(i);
+            if (printer.getString("name").equals(name)) {
+                JSONArray densities = printer.optJSONArray("resolutions");
+                if (densities == null) { return null; }
+
+                List<PrinterResolution> resolutions = new ArrayList<>();
+                for(int r = 0; r < densities.length(); r++) {
+                    JSONArray density = densities.getJSONArray(r);
+                    resolutions.add(new PrinterResolution(density.getInt(0), density.getInt(1), ResolutionSyntax.DPI));
+                }
+                return resolutions;
+            }
+        }
+        return null;
+    }
+
+    public long getSaved() {
+        return saved;
+    }
+
+    private static JSONObject copy(JSONObject json) throws JSONException {
+        return new JSONObject(json.toString());
+    }
+
+    /**
+     * @return A value that changes whenever printers are added, removed or have their driver changed
+     */
+    static String calculateFingerprint() {
+        StringBuilder key = new StringBuilder();
+        key.append(Constants.VERSION).append('|').append(Constants.JAVA_VERSION).append('|').append(SystemUtilities.getOs());
+
+        try {
+            if (SystemUtilities.isWindows()) {
+                String[] printers = WindowsUtilities.getRegistryKeys(HKEY_LOCAL_MACHINE, WINDOWS_PRINTERS_KEY);
+                if (printers != null) {
+                    Arrays.sort(printers);
+                    for(String printer : printers) {
+                        key.append('|').append(printer).append('=')
+                                .append(WindowsUtilities.getRegString(HKEY_LOCAL_MACHINE, WINDOWS_PRINTERS_KEY + "\\" + printer, "Printer Driver"));
+                    }
+                }
+                // network printers and the default printer are per-user
+                String[] connections = WindowsUtilities.getRegistryKeys(HKEY_CURRENT_USER, "Printers\\Connections");
+                if (connections != null) {
+                    Arrays.sort(connections);
+                    key.append('|').append(String.join(",", connections));
+                }
+                key.append('|').append(WindowsUtilities.getRegString(HKEY_CURRENT_USER, "Software\\Microsoft\\Windows NT\\CurrentVersion\\Windows", "Device"));
+            } else {
+                // CUPS rewrites these whenever a queue or its driver changes
+                Path cups = CupsConfigWatcher.DEFAULT_CONFIG_DIR;
+                appendModified(key, cups.resolve("printers.conf"));
+                appendModified(key, cups.resolve("classes.conf"));
+                appendModified(key, cups.resolve("lpoptions"));
+                appendModified(key, Paths.get(System.getProperty("user.home"), ".cups", "lpoptions"));
+                Path ppdDir = cups.resolve("ppd");
+                appendModified(key, ppdDir);
+                if (Files.isReadable(ppdDir)) {
+                    try(DirectoryStream<Path> ppds = Files.newDirectoryStream(ppdDir)) {
+                        List<Path> sorted = new ArrayList<>();
+                        ppds.forEach(sorted::add);
+                        Collections.sort(sorted);
+                        for(Path ppd : sorted) {
+                            appendModified(key, ppd);
+                        }
+                    }
+                }
+            }
+        }
+        catch(IOException | RuntimeException e) {
+            // can't tell if anything changed, so never match
+            log.warn("Unable to check printer configuration", e);
+            key.append('|').append(System.nanoTime());
+        }
+
+        return DigestUtils.sha256Hex(key.toString());
+    }
+
+    private static void appendModified(StringBuilder key, Path path) {
+        key.append('|').append(path).append('=');
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+            key.append(attributes.lastModifiedTime().toMillis()).append(',').append(attributes.size());
+        }
+        catch(IOException e) {
+            key.append("missing");
+        }
+    }
+}
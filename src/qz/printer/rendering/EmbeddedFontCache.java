@@ -0,0 +1,115 @@
+package qz.printer.rendering;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.pdfbox.pdmodel.common.PDStream;
+
+import java.awt.*;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Size bounded, least-recently-used cache of embedded PDF font programs parsed into AWT fonts, shared between jobs.
+ * <p/>
+ * Documents from the same generator usually embed identical font subsets, so fonts are keyed by a hash of their
+ * program rather than by the document they came from.  Handing out the same {@code Font} also keeps Java2D's own
+ * glyph caches warm between jobs, where a freshly created font would start over.
+ */
+public class EmbeddedFontCache {
+    private static final Logger log = LogManager.getLogger(EmbeddedFontCache.class);
+
+    private static final long MAX_BYTES = 32 * 1024 * 1024; // font program data
+
+    private static final LinkedHashMap<String,Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private static long usedBytes = 0;
+
+    private static final AtomicLong hits = new AtomicLong();
+    private static final AtomicLong misses = new AtomicLong();
+    private static final AtomicLong parseMillis = new AtomicLong();
+
+    private EmbeddedFontCache() {}
+
+    /**
+     * Parses the font program in {@code fontFile}, or returns the font parsed from an identical program before.
+     *
+     * @param fontFile   Embedded font program stream
+     * @param fontFormat {@link Font#TRUETYPE_FONT} or {@link Font#TYPE1_FONT}
+     * @return The font at size 1, or {@code null} if the program can't be read
+     */
+    public static Font getFont(PDStream fontFile, int fontFormat) throws IOException {
+        byte[] program = fontFile.toByteArray();
+        String key = fontFormat + ":" + DigestUtils.sha256Hex(program);
+
+        synchronized(entries) {
+            Entry cached = entries.get(key);
+            if (cached != null) {
+                hits.incrementAndGet();
+                logStats("hit");
+                return cached.font;
+            }
+        }
+
+        long start = System.currentTimeMillis();
+        Font font = null;
+        try {
+            font = Font.createFont(fontFormat, new ByteArrayInputStream(program));
+        }
+        catch(FontFormatException e) {
+            log.trace("Unable to parse embedded font program: {}", e.getMessage());
+        }
+        parseMillis.addAndGet(System.currentTimeMillis() - start);
+        misses.incrementAndGet();
+
+        // unreadable programs are remembered too, so they aren't parsed again
+        put(key, new Entry(font, program.length));
+        logStats("miss");
+
+        return font;
+    }
+
+    private static void put(String key, Entry entry) {
+        if (entry.size > MAX_BYTES) { return; }
+
+        synchronized(entries) {
+            Entry replaced = entries.put(key, entry);
+            if (replaced != null) {
+                usedBytes -= replaced.size;
+            }
+            usedBytes += entry.size;
+
+            Iterator<Map.Entry<String,Entry>> eldest = entries.entrySet().iterator();
+            while(usedBytes > MAX_BYTES && eldest.hasNext()) {
+                usedBytes -= eldest.next().getValue().size;
+                eldest.remove();
+            }
+        }
+    }
+
+    private static void logStats(String result) {
+        log.debug("Embedded font cache {}, {} hits, {} misses, {}ms spent parsing, {}/{} KB used", result, hits.get(), misses.get(),
+                  parseMillis.get(), usedBytes / 1024, MAX_BYTES / 1024);
+    }
+
+    public static long getHits() {
+        return hits.get();
+    }
+
+    public static long getMisses() {
+        return misses.get();
+    }
+
+    private static class Entry {
+        private final Font font;
+        private final long size;
+
+        Entry(Font font, long size) {
+            this.font = font;
+            this.size = size;
+        }
+    }
+}
@@ -16,26 +16,45 @@
  */
 package qz.printer.rendering;
 
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import qz.common.Constants;
+import qz.utils.FileUtilities;
+import qz.utils.SystemUtilities;
+
 import java.awt.*;
-import java.util.Enumeration;
-import java.util.HashMap;
-import java.util.Properties;
+import java.io.*;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.*;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
 
 /**
  * FontManager class pulled from PDFBOX 1.8
  * with the help of Alexander Scherbatiy
+ * <p/>
+ * The index of font names is built on first use and saved to disk, keyed by the state of the system font directories,
+ * so later launches don't have to enumerate every installed font.  Fonts themselves are only created once requested.
  */
 
 public class FontManager {
-    // HashMap with all known fonts
-    private static HashMap<String,java.awt.Font> envFonts = new HashMap<>();
-    private static Properties fontMapping = new Properties();
+    private static final Logger log = LogManager.getLogger(FontManager.class);
 
-    static {
-        loadFonts();
-        loadBasefontMapping();
-        loadFontMapping();
-    }
+    private static final Path INDEX_FILE = FileUtilities.USER_DIR.resolve("font-index.properties");
+    // normalized font names never contain spaces, so this can't collide with an entry
+    private static final String INDEX_KEY = " index";
+
+    private static final Pattern SEPARATORS = Pattern.compile("[ ,-]");
+    private static final Pattern BOLD = Pattern.compile("bold");
+    private static final Pattern ITALIC = Pattern.compile("italic");
+    private static final Pattern OBLIQUE = Pattern.compile("oblique");
+
+    // Normalized font names to the face name of all known fonts
+    private static volatile Map<String,String> envFonts;
+    private static final ConcurrentHashMap<String,java.awt.Font> resolvedFonts = new ConcurrentHashMap<>();
+    private static Properties fontMapping = new Properties();
 
     private FontManager() {}
 
@@ -46,34 +65,170 @@ public class FontManager {
      * @return The font we are looking for or a similar font or null if nothing is found.
      */
     public static java.awt.Font getAwtFont(String font) {
-        String fontname = normalizeFontname(font);
-        if (envFonts.containsKey(fontname)) {
-            return envFonts.get(fontname);
+        String faceName = getFonts().get(normalizeFontname(font));
+        if (faceName == null) {
+            return null;
         }
 
-        return null;
+        // same as the fonts listed by GraphicsEnvironment.getAllFonts()
+        return resolvedFonts.computeIfAbsent(faceName, name -> new java.awt.Font(name, java.awt.Font.PLAIN, 1));
+    }
+
+    private static Map<String,String> getFonts() {
+        if (envFonts == null) {
+            synchronized(FontManager.class) {
+                if (envFonts == null) {
+                    long start = System.currentTimeMillis();
+                    String indexKey = calculateIndexKey();
+
+                    Map<String,String> fonts = readIndex(indexKey);
+                    if (fonts == null) {
+                        fonts = new HashMap<>();
+                        loadFonts(fonts);
+                        loadBasefontMapping(fonts);
+                        loadFontMapping(fonts);
+                        writeIndex(indexKey, fonts);
+                    }
+
+                    log.debug("Indexed {} font names in {}ms", fonts.size(), System.currentTimeMillis() - start);
+                    envFonts = fonts;
+                }
+            }
+        }
+
+        return envFonts;
     }
 
     /**
      * Load all available fonts from the environment.
      */
-    private static void loadFonts() {
+    private static void loadFonts(Map<String,String> envFonts) {
         for(Font font : GraphicsEnvironment.getLocalGraphicsEnvironment().getAllFonts()) {
             String family = normalizeFontname(font.getFamily());
             String psname = normalizeFontname(font.getPSName());
+            String faceName = font.getFontName();
 
             if (isBoldItalic(font)) {
-                envFonts.put(family + "bolditalic", font);
+                envFonts.put(family + "bolditalic", faceName);
             } else if (isBold(font)) {
-                envFonts.put(family + "bold", font);
+                envFonts.put(family + "bold", faceName);
             } else if (isItalic(font)) {
-                envFonts.put(family + "italic", font);
+                envFonts.put(family + "italic", faceName);
             } else {
-                envFonts.put(family, font);
+                envFonts.put(family, faceName);
             }
 
             if (!family.equals(psname)) {
-                envFonts.put(normalizeFontname(font.getPSName()), font);
+                envFonts.put(psname, faceName);
+            }
+        }
+    }
+
+    /**
+     * @return A key that changes whenever fonts are likely to have been added or removed
+     */
+    private static String calculateIndexKey() {
+        StringBuilder key = new StringBuilder();
+        key.append(Constants.JAVA_VERSION).append('|').append(System.getProperty("java.home"));
+
+        for(Path dir : getFontDirectories()) {
+            if (!Files.isDirectory(dir)) { continue; }
+            try {
+                // adding or removing a font updates the modified time of the directory holding it
+                Files.walkFileTree(dir, EnumSet.noneOf(FileVisitOption.class), 8, new SimpleFileVisitor<Path>() {
+                    @Override
+                    public FileVisitResult preVisitDirectory(Path subDir, BasicFileAttributes attrs) {
+                        key.append('|').append(subDir).append('=').append(attrs.lastModifiedTime().toMillis());
+                        return FileVisitResult.CONTINUE;
+                    }
+
+                    @Override
+                    public FileVisitResult visitFileFailed(Path file, IOException e) {
+                        return FileVisitResult.CONTINUE;
+                    }
+                });
+            }
+            catch(IOException e) {
+                log.warn("Unable to check font directory {}", dir, e);
+            }
+        }
+
+        return Integer.toHexString(key.toString().hashCode()) + Long.toHexString(key.length());
+    }
+
+    private static List<Path> getFontDirectories() {
+        Path home = Paths.get(System.getProperty("user.home"));
+        List<Path> dirs = new ArrayList<>();
+        if (SystemUtilities.isWindows()) {
+            String windir = System.getenv("WINDIR");
+            if (windir != null) { dirs.add(Paths.get(windir, "Fonts")); }
+            String localAppData = System.getenv("LOCALAPPDATA");
+            if (localAppData != null) { dirs.add(Paths.get(localAppData, "Microsoft", "Windows", "Fonts")); }
+        } else if (SystemUtilities.isMac()) {
+            dirs.add(Paths.get("/System/Library/Fonts"));
+            dirs.add(Paths.get("/Library/Fonts"));
+            dirs.add(home.resolve("Library/Fonts"));
+        } else {
+            dirs.add(Paths.get("/usr/share/fonts"));
+            dirs.add(Paths.get("/usr/local/share/fonts"));
+            dirs.add(home.resolve(".fonts"));
+            dirs.add(home.resolve(".local/share/fonts"));
+        }
+        return dirs;
+    }
+
+    /**
+     * @return The saved font index, or {@code null} if missing or out of date
+     */
+    private static Map<String,String> readIndex(String indexKey) {
+        if (!Files.exists(INDEX_FILE)) {
+            return null;
+        }
+
+        Properties saved = new Properties();
+        try(InputStream in = Files.newInputStream(INDEX_FILE)) {
+            saved.load(in);
+        }
+        catch(IOException e) {
+            log.warn("Unable to read font index {}", INDEX_FILE, e);
+            return null;
+        }
+
+        if (!indexKey.equals(saved.remove(INDEX_KEY))) {
+            log.info("Font index is out of date, rebuilding");
+            return null;
+        }
+
+        Map<String,String> fonts = new HashMap<>();
+        for(String name : saved.stringPropertyNames()) {
+            fonts.put(name, saved.getProperty(name));
+        }
+        return fonts;
+    }
+
+    private static void writeIndex(String indexKey, Map<String,String> fonts) {
+        Properties index = new Properties();
+        index.putAll(fonts);
+        index.setProperty(INDEX_KEY, indexKey);
+
+        // write aside and move into place, so a crash or another instance writing at the same time can't leave a partial index behind
+        Path pending = null;
+        try {
+            pending = Files.createTempFile(INDEX_FILE.getParent(), INDEX_FILE.getFileName().toString(), ".tmp");
+            try(OutputStream out = Files.newOutputStream(pending)) {
+                index.store(out, "Font names, rebuilt automatically when installed fonts change");
+            }
+            try {
+                Files.move(pending, INDEX_FILE, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            }
+            catch(AtomicMoveNotSupportedException e) {
+                Files.move(pending, INDEX_FILE, StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+        catch(IOException e) {
+            log.warn("Unable to save font index {}", INDEX_FILE, e);
+            if (pending != null) {
+                try { Files.deleteIfExists(pending); } catch(IOException ignore) {}
             }
         }
     }
@@ -86,7 +241,7 @@ public class FontManager {
      */
     private static String normalizeFontname(String fontname) {
         // Terminate all whitespaces, commas and hyphens
-        String normalizedFontname = fontname.toLowerCase().replaceAll(" ", "").replaceAll(",", "").replaceAll("-", "");
+        String normalizedFontname = SEPARATORS.matcher(fontname.toLowerCase()).replaceAll("");
         // Terminate trailing characters up to the "+".
         // As far as I know, these characters are used in names of embedded fonts
         // If the embedded font can't be read, we'll try to find it here
@@ -97,8 +252,9 @@ public class FontManager {
         // e.g. Arial,Bold Arial-BoldMT Helevtica-oblique ...
         boolean isBold = normalizedFontname.contains("bold");
         boolean isItalic = normalizedFontname.contains("italic") || normalizedFontname.contains("oblique");
-        normalizedFontname = normalizedFontname.toLowerCase().replaceAll("bold", "")
-                .replaceAll("italic", "").replaceAll("oblique", "");
+        normalizedFontname = BOLD.matcher(normalizedFontname).replaceAll("");
+        normalizedFontname = ITALIC.matcher(normalizedFontname).replaceAll("");
+        normalizedFontname = OBLIQUE.matcher(normalizedFontname).replaceAll("");
         if (isBold) {
             normalizedFontname += "bold";
         }
@@ -116,7 +272,7 @@ public class FontManager {
      * @param font       The name of the font.
      * @param mappedName The name of the mapped font.
      */
-    private static boolean addFontMapping(String font, String mappedName) {
+    private static boolean addFontMapping(Map<String,String> envFonts, String font, String mappedName) {
         String fontname = normalizeFontname(font);
         // is there already a font mapping ?
         if (envFonts.containsKey(fontname)) {
@@ -134,7 +290,7 @@ public class FontManager {
     /**
      * Load the mapping for the well knwon font-substitutions.
      */
-    private static void loadFontMapping() {
+    private static void loadFontMapping(Map<String,String> envFonts) {
         boolean addedMapping = true;
         // There could be some recursive mappings in the fontmapping, so that we have to
         // read the list until no more additional mapping is added to it
@@ -143,7 +299,7 @@ public class FontManager {
             Enumeration<Object> keys = fontMapping.keys();
             while(keys.hasMoreElements()) {
                 String key = (String)keys.nextElement();
-                if (addFontMapping(key, (String)fontMapping.get(key))) {
+                if (addFontMapping(envFonts, key, (String)fontMapping.get(key))) {
                     counter++;
                 }
             }
@@ -156,50 +312,50 @@ public class FontManager {
     /**
      * Mapping for the basefonts.
      */
-    private static void loadBasefontMapping() {
+    private static void loadBasefontMapping(Map<String,String> envFonts) {
         // use well known substitutions if the environments doesn't provide native fonts for the 14 standard fonts
         // Times-Roman -> Serif
-        if (!addFontMapping("Times-Roman", "TimesNewRoman")) {
-            addFontMapping("Times-Roman", "Serif");
+        if (!addFontMapping(envFonts, "Times-Roman", "TimesNewRoman")) {
+            addFontMapping(envFonts, "Times-Roman", "Serif");
         }
-        if (!addFontMapping("Times-Bold", "TimesNewRoman,Bold")) {
-            addFontMapping("Times-Bold", "Serif.bold");
+        if (!addFontMapping(envFonts, "Times-Bold", "TimesNewRoman,Bold")) {
+            addFontMapping(envFonts, "Times-Bold", "Serif.bold");
         }
-        if (!addFontMapping("Times-Italic", "TimesNewRoman,Italic")) {
-            addFontMapping("Times-Italic", "Serif.italic");
+        if (!addFontMapping(envFonts, "Times-Italic", "TimesNewRoman,Italic")) {
+            addFontMapping(envFonts, "Times-Italic", "Serif.italic");
         }
-        if (!addFontMapping("Times-BoldItalic", "TimesNewRoman,Bold,Italic")) {
-            addFontMapping("Times-BoldItalic", "Serif.bolditalic");
+        if (!addFontMapping(envFonts, "Times-BoldItalic", "TimesNewRoman,Bold,Italic")) {
+            addFontMapping(envFonts, "Times-BoldItalic", "Serif.bolditalic");
         }
         // Helvetica -> SansSerif
-        if (!addFontMapping("Helvetica", "Helvetica")) {
-            addFontMapping("Helvetica", "SansSerif");
+        if (!addFontMapping(envFonts, "Helvetica", "Helvetica")) {
+            addFontMapping(envFonts, "Helvetica", "SansSerif");
         }
-        if (!addFontMapping("Helvetica-Bold", "Helvetica,Bold")) {
-            addFontMapping("Helvetica-Bold", "SansSerif.bold");
+        if (!addFontMapping(envFonts, "Helvetica-Bold", "Helvetica,Bold")) {
+            addFontMapping(envFonts, "Helvetica-Bold", "SansSerif.bold");
         }
-        if (!addFontMapping("Helvetica-Oblique", "Helvetica,Italic")) {
-            addFontMapping("Helvetica-Oblique", "SansSerif.italic");
+        if (!addFontMapping(envFonts, "Helvetica-Oblique", "Helvetica,Italic")) {
+            addFontMapping(envFonts, "Helvetica-Oblique", "SansSerif.italic");
         }
-        if (!addFontMapping("Helvetica-BoldOblique", "Helvetica,Bold,Italic")) {
-            addFontMapping("Helvetica-BoldOblique", "SansSerif.bolditalic");
+        if (!addFontMapping(envFonts, "Helvetica-BoldOblique", "Helvetica,Bold,Italic")) {
+            addFontMapping(envFonts, "Helvetica-BoldOblique", "SansSerif.bolditalic");
         }
         // Courier -> Monospaced
-        if (!addFontMapping("Courier", "Courier")) {
-            addFontMapping("Courier", "Monospaced");
+        if (!addFontMapping(envFonts, "Courier", "Courier")) {
+            addFontMapping(envFonts, "Courier", "Monospaced");
         }
-        if (!addFontMapping("Courier-Bold", "Courier,Bold")) {
-            addFontMapping("Courier-Bold", "Monospaced.bold");
+        if (!addFontMapping(envFonts, "Courier-Bold", "Courier,Bold")) {
+            addFontMapping(envFonts, "Courier-Bold", "Monospaced.bold");
         }
-        if (!addFontMapping("Courier-Oblique", "Courier,Italic")) {
-            addFontMapping("Courier-Oblique", "Monospaced.italic");
+        if (!addFontMapping(envFonts, "Courier-Oblique", "Courier,Italic")) {
+            addFontMapping(envFonts, "Courier-Oblique", "Monospaced.italic");
         }
-        if (!addFontMapping("Courier-BoldOblique", "Courier,Bold,Italic")) {
-            addFontMapping("Courier-BoldOblique", "Monospaced.bolditalic");
+        if (!addFontMapping(envFonts, "Courier-BoldOblique", "Courier,Bold,Italic")) {
+            addFontMapping(envFonts, "Courier-BoldOblique", "Monospaced.bolditalic");
         }
         // some well known (??) substitutions found on fedora linux
-        addFontMapping("Symbol", "StandardSymbolsL");
-        addFontMapping("ZapfDingbats", "Dingbats");
+        addFontMapping(envFonts, "Symbol", "StandardSymbolsL");
+        addFontMapping(envFonts, "ZapfDingbats", "Dingbats");
     }
 
     /**
@@ -26,10 +26,18 @@ public class PdfFontPageDrawer extends PageDrawer {
     private static final Logger log = LogManager.getLogger(PdfFontPageDrawer.class);
 
     private String fallbackFont = "helvetica"; //todo - definable parameter?
-    private final Map<PDFont,Font> fonts = new HashMap<>();
+    private final Map<PDFont,Font> fonts;
 
     public PdfFontPageDrawer(PageDrawerParameters parameters, boolean ignoresTransparency) throws IOException {
+        this(parameters, ignoresTransparency, new HashMap<>());
+    }
+
+    /**
+     * @param fonts Fonts already resolved for this document, shared between the drawers of its pages
+     */
+    public PdfFontPageDrawer(PageDrawerParameters parameters, boolean ignoresTransparency, Map<PDFont,Font> fonts) throws IOException {
         super(parameters);
+        this.fonts = fonts;
 
         if (ignoresTransparency) {
             // Note:  These must match ParamPdfRenderer's OpaquePageDrawer
@@ -136,11 +144,9 @@ public class PdfFontPageDrawer extends PageDrawer {
 
         if (fd != null) {
             if (fd.getFontFile() != null) {
-                try {
-                    // create a type1 font with the embedded data
-                    awtFont = Font.createFont(Font.TYPE1_FONT, fd.getFontFile().createInputStream());
-                }
-                catch(java.awt.FontFormatException e) {
+                // create a type1 font with the embedded data
+                awtFont = EmbeddedFontCache.getFont(fd.getFontFile(), Font.TYPE1_FONT);
+                if (awtFont == null) {
                     log.debug("Can't read the embedded type1 font {}", fd.getFontName());
                 }
             }
@@ -176,11 +182,9 @@ public class PdfFontPageDrawer extends PageDrawer {
         PDStream ff2Stream = fd.getFontFile2();
 
         if (ff2Stream != null) {
-            try {
-                // create a font with the embedded data
-                awtFont = Font.createFont(Font.TRUETYPE_FONT, ff2Stream.createInputStream());
-            }
-            catch(java.awt.FontFormatException f) {
+            // create a font with the embedded data
+            awtFont = EmbeddedFontCache.getFont(ff2Stream, Font.TRUETYPE_FONT);
+            if (awtFont == null) {
                 log.debug("Can't read the embedded font {}", fd.getFontName());
             }
             if (awtFont == null) {
@@ -23,6 +23,8 @@ public interface Cups extends Library {
         public static int TAG_KEYWORD = INSTANCE.ippTagValue("keyword");
         public static int TAG_ENUM = INSTANCE.ippTagValue("enum");
         public static int TAG_SUBSCRIPTION = INSTANCE.ippTagValue("Subscription");
+        public static int TAG_PRINTER = INSTANCE.ippTagValue("Printer");
+        public static int TAG_EVENT_NOTIFICATION = INSTANCE.ippTagValue("Event");
         public static int TAG_MIMETYPE = INSTANCE.ippTagValue("mimetype");
         public static int GET_PRINTERS = INSTANCE.ippOpValue("CUPS-Get-Printers");
         public static int GET_PRINTER_ATTRIBUTES = INSTANCE.ippOpValue("Get-Printer-Attributes");
@@ -38,6 +40,7 @@ public interface Cups extends Library {
         public static final int OP_PRINT_JOB = 0x02;
         public static final int INT_ERROR = 0;
         public static final int INT_UNDEFINED = -1;
+        public static final int STATUS_OK_MAX = 0x00FF; // successful-ok-* status codes
 
         public static final String CUPS_FORMAT_TEXT = "application/vnd.cups-raw";
     }
@@ -56,6 +59,7 @@ public interface Cups extends Library {
     Pointer ippFindNextAttribute(Pointer ipp, String name, int type);
 
     String cupsServer();
+    String cupsLastErrorString();
     String ippTagString(int tag);
     String ippGetName(Pointer attr);
     String ippGetString(Pointer attr, int element, String language);
@@ -72,6 +76,8 @@ public interface Cups extends Library {
     int ippGetCount(Pointer attr);
     int ippGetValueTag(Pointer ipp);
     int ippGetInteger(Pointer attr, int element);
+    int ippGetGroupTag(Pointer attr);
+    int ippGetStatusCode(Pointer ipp);
 
     void ippDelete(Pointer ipp);
     void httpClose(Pointer http);
@@ -0,0 +1,165 @@
+package qz.printer.status;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import qz.printer.status.job.NativeJobStatus;
+
+import java.util.*;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
+
+/**
+ * Turns the RSS pings CUPS sends for our subscription into status events.
+ * <p/>
+ * CUPS pings once per event, so a single print job can ping several times within a few milliseconds.  Pings arriving
+ * within the debounce window share one Get-Notifications request, which only asks for the events after the last
+ * sequence number already handled.
+ */
+class CupsNotifications {
+    private static final Logger log = LogManager.getLogger(CupsNotifications.class);
+
+    static final long DEBOUNCE = 100; // in milliseconds
+
+    private final IntFunction<List<Map<String,String>>> fetcher;
+    private final Consumer<Status[]> consumer;
+    private final long debounce;
+    private final ScheduledThreadPoolExecutor scheduler;
+    private final AtomicBoolean pending = new AtomicBoolean();
+
+    // only touched while processing, which happens on one thread at a time
+    private int lastSequence = 0;
+    private final HashMap<String,List<Status>> lastPrinterStatusMap = new HashMap<>();
+    private final HashMap<String,List<Status>> lastJobStatusMap = new HashMap<>();
+
+    /**
+     * @param fetcher  Returns the events starting at the given sequence number, as <code>CupsUtils.getNotifications</code> does
+     * @param consumer Receives the new statuses of each fetch
+     * @param debounce How long to wait after a ping for more pings, in milliseconds
+     */
+    CupsNotifications(IntFunction<List<Map<String,String>>> fetcher, Consumer<Status[]> consumer, long debounce) {
+        this.fetcher = fetcher;
+        this.consumer = consumer;
+        this.debounce = debounce;
+
+        scheduler = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "cupsNotificationThread");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // let the thread go while CUPS is quiet
+        scheduler.setKeepAliveTime(30, TimeUnit.SECONDS);
+        scheduler.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Schedules a fetch unless one is already waiting.  Never blocks.
+     */
+    void ping() {
+        if (pending.compareAndSet(false, true)) {
+            scheduler.schedule(this::fetch, debounce, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void fetch() {
+        // pings from here on may be for events this request misses, so they need a fetch of their own
+        pending.set(false);
+
+        try {
+            List<Map<String,String>> events = fetcher.apply(lastSequence + 1);
+            if (events == null) {
+                log.warn("Could not read notifications from CUPS");
+                return;
+            }
+
+            Status[] statuses = process(events);
+            if (statuses.length > 0) {
+                consumer.accept(statuses);
+            }
+        }
+        catch(RuntimeException e) {
+            log.warn("Failed to process CUPS notifications", e);
+        }
+    }
+
+    /**
+     * Compares each event against the last statuses reported for its printer or job, skipping events already handled
+     *
+     * @return The statuses not already reported, in event order
+     */
+    synchronized Status[] process(List<Map<String,String>> events) {
+        ArrayList<Status> statuses = new ArrayList<>();
+
+        for(Map<String,String> event : events) {
+            int sequence = getInt(event, "notify-sequence-number");
+            if (sequence <= lastSequence) {
+                continue; // already handled by an earlier fetch
+            }
+            lastSequence = sequence;
+
+            String printer = event.getOrDefault("printer-name", "");
+            String eventType = event.getOrDefault("notify-subscribed-event", "");
+            if (eventType.startsWith("job")) {
+                int jobId = getInt(event, "notify-job-id");
+                String jobState = event.getOrDefault("job-state", "");
+                String jobName = event.getOrDefault("job-name", "");
+                // Statuses come in blocks eg. {printing, toner_low} We only want to display a status if it didn't exist in the last block
+                // '/' Is a documented invalid character for CUPS printer names. We will use that as a separator
+                String jobKey = printer + "/" + jobId;
+                List<Status> oldStatuses = lastJobStatusMap.getOrDefault(jobKey, Collections.emptyList());
+                List<Status> newStatuses = new ArrayList<>();
+
+                boolean completed = false;
+                for(String reason : getValues(event, "job-state-reasons")) {
+                    Status pending = NativeStatus.fromCupsJobStatus(reason, jobState, printer, jobId, jobName);
+                    if (!oldStatuses.contains(pending)) { statuses.add(pending); }
+                    // If the job is complete, we need to remove it from our map
+                    if (pending.getCode() == NativeJobStatus.COMPLETE || pending.getCode() == NativeJobStatus.CANCELED) {
+                        completed = true;
+                    }
+                    newStatuses.add(pending);
+                }
+                if (completed) {
+                    lastJobStatusMap.remove(jobKey);
+                } else {
+                    lastJobStatusMap.put(jobKey, newStatuses);
+                }
+            } else if (eventType.startsWith("printer")) {
+                String state = event.getOrDefault("printer-state", "");
+                List<Status> oldStatuses = lastPrinterStatusMap.getOrDefault(printer, Collections.emptyList());
+                List<Status> newStatuses = new ArrayList<>();
+
+                for(String reason : getValues(event, "printer-state-reasons")) {
+                    Status pending = NativeStatus.fromCupsPrinterStatus(reason, state, printer);
+                    if (!oldStatuses.contains(pending)) { statuses.add(pending); }
+                    newStatuses.add(pending);
+                }
+                lastPrinterStatusMap.put(printer, newStatuses);
+            } else {
+                log.debug("Unknown CUPS event type {}.", eventType);
+            }
+        }
+
+        return statuses.toArray(new Status[0]);
+    }
+
+    synchronized int getLastSequence() {
+        return lastSequence;
+    }
+
+    private static int getInt(Map<String,String> event, String name) {
+        try {
+            return Integer.parseInt(event.getOrDefault(name, "0"));
+        }
+        catch(NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    private static String[] getValues(Map<String,String> event, String name) {
+        String values = event.get(name);
+        return values == null || values.isEmpty()? new String[0]:values.split(",");
+    }
+}
@@ -13,6 +13,9 @@ import java.io.File;
 import java.io.IOException;
 import java.net.URI;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 /**
  * Created by kyle on 5/17/17.
@@ -102,6 +105,24 @@ public class CupsUtils {
         return doRequest(request, "/");
     }
 
+    /**
+     * Reads the events of our subscription starting at sequence number <code>firstSequence</code>
+     *
+     * @return One map of attributes per event, in sequence order.  Keywords with several values (e.g.
+     * <code>job-state-reasons</code>) are comma separated and enums are given by name.  {@code null} if CUPS couldn't
+     * be reached or refused the request
+     */
+    public static List<Map<String,String>> getNotifications(int firstSequence) {
+        Pointer response = getStatuses(firstSequence);
+        if (!isSuccessful(response, "Get-Notifications")) {
+            return null;
+        }
+
+        List<IppAttribute> events = readAttributes(response);
+        cups.ippDelete(response);
+        return IppAttribute.group(events, IPP.TAG_EVENT_NOTIFICATION);
+    }
+
     public static ArrayList<Status> getAllStatuses() {
         ArrayList<Status> statuses = new ArrayList<>();
         Pointer request = cups.ippNewRequest(IPP.GET_PRINTERS);
@@ -137,6 +158,70 @@ public class CupsUtils {
         return statuses;
     }
 
+    /**
+     * Lists every queue with a single CUPS-Get-Printers request
+     *
+     * @param attributes Printer attributes to request
+     * @return The requested attributes per printer, in the order CUPS returns them, or {@code null} if CUPS couldn't
+     * be reached or refused the request
+     */
+    public static List<Map<String,String>> listPrinters(String... attributes) {
+        Pointer request = cups.ippNewRequest(IPP.GET_PRINTERS);
+
+        cups.ippAddString(request, IPP.TAG_OPERATION, IPP.TAG_NAME, "requesting-user-name", CHARSET, USER);
+        cups.ippAddStrings(request, IPP.TAG_OPERATION, IPP.TAG_KEYWORD, "requested-attributes", attributes.length, CHARSET,
+                           new StringArray(attributes));
+
+        Pointer response = doRequest(request, "/");
+        if (!isSuccessful(response, "CUPS-Get-Printers")) {
+            return null;
+        }
+
+        List<IppAttribute> printers = readAttributes(response);
+        cups.ippDelete(response);
+        return IppAttribute.group(printers, IPP.TAG_PRINTER);
+    }
+
+    /**
+     * Checks the response of a request, freeing it if the request failed
+     */
+    static boolean isSuccessful(Pointer response, String operation) {
+        if (response == Pointer.NULL) {
+            log.warn("{} request failed: {}", operation, cups.cupsLastErrorString());
+            return false;
+        }
+        int status = cups.ippGetStatusCode(response);
+        if (status > IPP.STATUS_OK_MAX) {
+            log.warn("{} request failed with status 0x{}: {}", operation, Integer.toHexString(status), cups.cupsLastErrorString());
+            cups.ippDelete(response);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Copies every attribute of a response, in order, including the separators between groups
+     */
+    static List<IppAttribute> readAttributes(Pointer response) {
+        List<IppAttribute> attributes = new ArrayList<>();
+        for(Pointer attr = cups.ippFirstAttribute(response); attr != Pointer.NULL; attr = cups.ippNextAttribute(response)) {
+            String name = cups.ippGetName(attr);
+            int valueTag = cups.ippGetValueTag(attr);
+            List<String> values = new ArrayList<>();
+            for(int i = 0; name != null && i < cups.ippGetCount(attr); i++) {
+                if (valueTag == IPP.TAG_INTEGER) {
+                    values.add(String.valueOf(cups.ippGetInteger(attr, i)));
+                } else if (valueTag == IPP.TAG_ENUM) {
+                    values.add(cups.ippEnumString(name, cups.ippGetInteger(attr, i)));
+                } else {
+                    values.add(cups.ippGetString(attr, i, ""));
+                }
+            }
+            attributes.add(new IppAttribute(name, cups.ippGetGroupTag(attr), values));
+        }
+        return attributes;
+    }
+
     public static boolean clearSubscriptions() {
         Pointer response = listSubscriptions();
         Pointer attr = cups.ippFindAttribute(response, "notify-recipient-uri", IPP.TAG_URI);
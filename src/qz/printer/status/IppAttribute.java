@@ -0,0 +1,61 @@
+package qz.printer.status;
+
+import java.util.*;
+
+/**
+ * An attribute of an IPP response, copied out of libcups so the response can be split into groups without it
+ */
+public class IppAttribute {
+    private final String name;
+    private final int groupTag;
+    private final List<String> values;
+
+    /**
+     * @param name     Attribute name, {@code null} for the separator libcups puts between two groups of the same kind
+     * @param groupTag Tag of the group holding the attribute, e.g. <code>Cups.IPP.TAG_PRINTER</code>
+     * @param values   Values as text, enums given by name
+     */
+    public IppAttribute(String name, int groupTag, List<String> values) {
+        this.name = name;
+        this.groupTag = groupTag;
+        this.values = values;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getGroupTag() {
+        return groupTag;
+    }
+
+    public List<String> getValues() {
+        return values;
+    }
+
+    /**
+     * Splits a response into one map of attributes per group tagged <code>groupTag</code>, e.g. one per printer
+     *
+     * @return The groups in response order.  Attributes with several values (e.g. <code>printer-state-reasons</code>)
+     * are comma separated, attributes without a value are left out.
+     */
+    public static List<Map<String,String>> group(List<IppAttribute> attributes, int groupTag) {
+        List<Map<String,String>> groups = new ArrayList<>();
+        Map<String,String> group = null;
+        for(IppAttribute attribute : attributes) {
+            if (attribute.getName() == null || attribute.getGroupTag() != groupTag) {
+                // separator between groups
+                group = null;
+                continue;
+            }
+            if (group == null) {
+                group = new HashMap<>();
+                groups.add(group);
+            }
+            if (!attribute.getValues().isEmpty()) {
+                group.put(attribute.getName(), String.join(",", attribute.getValues()));
+            }
+        }
+        return groups;
+    }
+}
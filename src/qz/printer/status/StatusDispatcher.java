@@ -0,0 +1,105 @@
+package qz.printer.status;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.function.Consumer;
+
+/**
+ * Hands statuses to a consumer, in order, from a single thread that sleeps while there's nothing to send.
+ * <p/>
+ * Printers and spoolers tend to report the same status many times in a row.  A status identical to the last one sent
+ * for the same printer (or the same job) is dropped if it arrives within the coalescing window, so the window also
+ * limits how often an unchanged status is repeated.
+ */
+class StatusDispatcher {
+    private static final Logger log = LogManager.getLogger(StatusDispatcher.class);
+
+    static final long COALESCE_WINDOW = 250; // in milliseconds
+    private static final int MAX_TRACKED = 256;
+
+    private final LinkedBlockingQueue<Status> queue = new LinkedBlockingQueue<>();
+    private final Consumer<Status> consumer;
+    private final long window;
+    private Thread thread;
+
+    // last status sent for each printer or job, only touched by the dispatch thread
+    private final HashMap<String,Sent> lastSent = new HashMap<>();
+
+    private static class Sent {
+        final Status status;
+        final long time;
+
+        Sent(Status status, long time) {
+            this.status = status;
+            this.time = time;
+        }
+    }
+
+    StatusDispatcher(Consumer<Status> consumer, long window) {
+        this.consumer = consumer;
+        this.window = window;
+    }
+
+    /**
+     * Queues statuses to be sent, starting the dispatch thread if needed.  Never blocks.
+     */
+    void dispatch(Status... statuses) {
+        if (statuses.length == 0) { return; }
+        Collections.addAll(queue, statuses);
+        ensureRunning();
+    }
+
+    private synchronized void ensureRunning() {
+        if (thread != null && thread.isAlive()) { return; }
+
+        thread = new Thread(this::run, "statusEventDispatchThread");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    synchronized Thread getThread() {
+        return thread;
+    }
+
+    private void run() {
+        try {
+            while(!Thread.currentThread().isInterrupted()) {
+                Status status = queue.take(); // sleeps until there's work
+                if (isRepeat(status)) {
+                    log.trace("Coalesced repeated status {}", status);
+                    continue;
+                }
+
+                try {
+                    consumer.accept(status);
+                }
+                catch(RuntimeException e) {
+                    log.warn("Failed to dispatch status event", e);
+                }
+            }
+        }
+        catch(InterruptedException e) {
+            log.warn("statusEventDispatchThread Interrupted");
+        }
+    }
+
+    private boolean isRepeat(Status status) {
+        long now = System.currentTimeMillis();
+        String key = status.getPrinter() + "|" + status.getEventType() + "|" + status.getJobId();
+
+        Sent previous = lastSent.get(key);
+        if (previous != null && now - previous.time < window && previous.status.equals(status)) {
+            return true;
+        }
+
+        if (lastSent.size() >= MAX_TRACKED) {
+            lastSent.values().removeIf(sent -> now - sent.time >= window);
+        }
+        lastSent.put(key, new Sent(status, now));
+        return false;
+    }
+}
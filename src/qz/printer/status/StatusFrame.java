@@ -0,0 +1,56 @@
+package qz.printer.status;
+
+import org.codehaus.jettison.json.JSONException;
+import qz.ws.PrintSocketClient;
+import qz.ws.StreamEvent;
+
+/**
+ * A status event as sent over the websocket, encoded the first time a session needs it and then shared as-is by
+ * every other session listening to the same printer.
+ */
+public class StatusFrame {
+    private final Status status;
+    private volatile String encoded;
+
+    public StatusFrame(Status status) {
+        this.status = status;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    /**
+     * @return The complete stream message, as passed to <code>PrintSocketClient.sendStream</code>
+     */
+    public String getEncoded() throws JSONException {
+        String message = encoded;
+        if (message == null) {
+            synchronized(this) {
+                message = encoded;
+                if (message == null) {
+                    message = PrintSocketClient.encodeStream(createStatusStream(status));
+                    encoded = message;
+                }
+            }
+        }
+        return message;
+    }
+
+    private static StreamEvent createStatusStream(Status status) {
+        StreamEvent streamEvent = new StreamEvent(StreamEvent.Stream.PRINTER, StreamEvent.Type.ACTION)
+                .withData("printerName", status.sanitizePrinterName())
+                .withData("eventType", status.getEventType())
+                .withData("statusText", status.getCode().name())
+                .withData("severity", status.getCode().getLevel())
+                .withData("statusCode", status.getRawCode())
+                .withData("message", status.toString());
+        if(status.getJobId() > 0) {
+            streamEvent.withData("jobId", status.getJobId());
+        }
+        if(status.getJobName() != null) {
+            streamEvent.withData("jobName", status.getJobName());
+        }
+        return streamEvent;
+    }
+}
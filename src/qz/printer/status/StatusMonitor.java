@@ -5,7 +5,6 @@ import com.sun.jna.platform.win32.WinspoolUtil;
 import org.codehaus.jettison.json.JSONArray;
 import org.codehaus.jettison.json.JSONException;
 import org.codehaus.jettison.json.JSONObject;
-import org.eclipse.jetty.util.MultiMap;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.eclipse.jetty.websocket.api.Session;
@@ -17,6 +16,8 @@ import qz.utils.SystemUtilities;
 import qz.ws.SocketConnection;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
 
 import static qz.utils.SystemUtilities.isWindows;
 
@@ -29,11 +30,13 @@ public class StatusMonitor {
     public static final String ALL_PRINTERS = "";
 
     private static Thread printerConnectionsThread;
-    private static Thread statusEventDispatchThread;
     private static final HashMap<String,Thread> notificationThreadCollection = new HashMap<>();
-    private static final HashMap<SocketConnection, StatusSession> statusSessions = new HashMap<>();
-    private static final MultiMap<SocketConnection> clientPrinterConnections = new MultiMap<>();
-    private static final LinkedList<Status> statusQueue = new LinkedList<>();
+
+    // read for every status event, changed only when clients start or stop listening
+    private static final ConcurrentHashMap<SocketConnection, StatusSession> statusSessions = new ConcurrentHashMap<>();
+    private static final ConcurrentHashMap<String, Set<SocketConnection>> clientPrinterConnections = new ConcurrentHashMap<>();
+
+    private static final StatusDispatcher dispatcher = new StatusDispatcher(StatusMonitor::dispatchStatusEvent, StatusDispatcher.COALESCE_WINDOW);
 
     public synchronized static boolean launchNotificationThreads() {
         ArrayList<String> printerNameList = new ArrayList<>();
@@ -79,13 +82,14 @@ public class StatusMonitor {
         }
     }
 
-    public synchronized static boolean isListening(SocketConnection connection) {
+    public static boolean isListening(SocketConnection connection) {
         return statusSessions.containsKey(connection);
     }
 
     public synchronized static boolean startListening(SocketConnection connection, Session session, JSONObject params) throws JSONException {
         JSONArray printerNames = params.getJSONArray("printerNames");
         statusSessions.putIfAbsent(connection, new StatusSession(session));
+        statusSessions.get(connection).setFilters(params);
 
         if (printerNames.isNull(0)) {  //listen to all printers
             addClientPrinterConnection(ALL_PRINTERS, connection, params);
@@ -125,11 +129,7 @@ public class StatusMonitor {
         if (jobData) {
             statusSessions.get(connection).enableJobDataOnPrinter(printerName, maxJobData, dataFlavor);
         }
-        if (!clientPrinterConnections.containsKey(printerName)) {
-            clientPrinterConnections.add(printerName, connection);
-        } else if (!clientPrinterConnections.getValues(printerName).contains(connection)) {
-            clientPrinterConnections.add(printerName, connection);
-        }
+        clientPrinterConnections.computeIfAbsent(printerName, name -> new CopyOnWriteArraySet<>()).add(connection);
     }
 
     public synchronized static void sendStatuses(SocketConnection connection) {
@@ -137,7 +137,7 @@ public class StatusMonitor {
         ArrayList<Status> statuses = isWindows() ? WmiPrinterStatusThread.getAllStatuses(): CupsUtils.getAllStatuses();
 
         // First check if we're listening on all printers for this connection
-        List<SocketConnection> connections = clientPrinterConnections.get(ALL_PRINTERS);
+        Set<SocketConnection> connections = clientPrinterConnections.get(ALL_PRINTERS);
         if (connections != null) {
             sendForAllPrinters = connections.contains(connection);
         }
@@ -156,9 +156,10 @@ public class StatusMonitor {
     }
 
     public synchronized static void closeListener(SocketConnection connection) {
-        clientPrinterConnections.entrySet().removeIf((Map.Entry<String, List<SocketConnection>> entry) -> (
-                entry.getValue().contains(connection)
-        ));
+        for(Map.Entry<String, Set<SocketConnection>> entry : clientPrinterConnections.entrySet()) {
+            entry.getValue().remove(connection);
+        }
+        clientPrinterConnections.values().removeIf(Set::isEmpty);
         if (clientPrinterConnections.isEmpty()) {
             if (isWindows()) {
                 closeNotificationThreads();
@@ -168,55 +169,34 @@ public class StatusMonitor {
         }
     }
 
-    private synchronized static void launchStatusEventDispatchThread() {
-        // Null is our main test to see if the thread needs to restart. If the thread was suspended, it won't be null, so check to see if it is alive as well.
-        if (statusEventDispatchThread != null && statusEventDispatchThread.isAlive()) return;
-        statusEventDispatchThread = new Thread(() -> {
-            while (!Thread.currentThread().isInterrupted() && dispatchStatusEvent()) {
-                // If we don't yield, this will constantly run dispatchStatusEvent and lock up the class, even though this thread isn't synchronized.
-                Thread.yield();
-            }
-            if (Thread.currentThread().isInterrupted()) log.warn("statusEventDispatchThread Interrupted");
-        }, "statusEventDispatchThread");
-        statusEventDispatchThread.start();
+    public static void statusChanged(Status[] statuses) {
+        // Hand off to the dispatch thread, which sends them one at a time and sleeps when there are none left
+        dispatcher.dispatch(statuses);
     }
 
-    public synchronized static void statusChanged(Status[] statuses) {
-        // Add statuses to the queue, statusEventDispatchThread will resolve these one at a time until the queue is empty
-        Collections.addAll(statusQueue, statuses);
-        if (!statusQueue.isEmpty()) {
-            // If statusEventDispatchThread isn't already running, launch it
-            launchStatusEventDispatchThread();
-        }
-    }
-
-    // This is the main body of the statusEventDispatchThread.
+    // Called from the dispatch thread for each status event, not synchronized so events don't wait on listeners being added or removed
     // Dispatch one status event to n clients connection, based on clientPrinterConnections
-    // Returns false when there are no more statuses in the queue
-    private synchronized static boolean dispatchStatusEvent() {
-        if (statusQueue.isEmpty()) {
-            // Returning false will kill statusEventDispatchThread, but we also want to null out the value while we are still in a synchronized method
-            statusEventDispatchThread = null;
-            return false;
-        }
-        Status status = statusQueue.removeFirst();
-
+    private static void dispatchStatusEvent(Status status) {
         HashSet<SocketConnection> listeningConnections = new HashSet<>();
-        if (clientPrinterConnections.containsKey(status.getPrinter())) {
+        Set<SocketConnection> printerConnections = clientPrinterConnections.get(status.getPrinter());
+        if (printerConnections != null) {
             // Find every client that subscribed to this printer
-            listeningConnections.addAll(clientPrinterConnections.get(status.getPrinter()));
+            listeningConnections.addAll(printerConnections);
         }
-        if (clientPrinterConnections.containsKey(ALL_PRINTERS)) {
+        Set<SocketConnection> allPrinterConnections = clientPrinterConnections.get(ALL_PRINTERS);
+        if (allPrinterConnections != null) {
             // And find every client that subscribed to all printers
-            listeningConnections.addAll(clientPrinterConnections.get(ALL_PRINTERS));
+            listeningConnections.addAll(allPrinterConnections);
         }
 
-        // Notify each client subscription
+        // Notify each client subscription, encoding the event at most once for all of them
+        StatusFrame frame = new StatusFrame(status);
         for (SocketConnection connection : listeningConnections) {
-            statusSessions.get(connection).statusChanged(status, () -> stopListening(connection));
+            StatusSession session = statusSessions.get(connection);
+            if (session != null) {
+                session.statusChanged(frame, () -> stopListening(connection));
+            }
         }
-
-        return true;
     }
 
     private static String getPrinterNameFromDescription(String description) {
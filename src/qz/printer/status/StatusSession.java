@@ -1,7 +1,11 @@
 package qz.printer.status;
 
+import org.apache.logging.log4j.Level;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.codehaus.jettison.json.JSONArray;
+import org.codehaus.jettison.json.JSONException;
+import org.codehaus.jettison.json.JSONObject;
 import org.eclipse.jetty.websocket.api.Session;
 import qz.App;
 import qz.printer.status.job.WmiJobStatusMap;
@@ -12,7 +16,9 @@ import qz.ws.StreamEvent;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.EnumSet;
 import java.util.HashMap;
+import java.util.Locale;
 import java.util.Map;
 
 import static qz.printer.status.StatusMonitor.ALL_PRINTERS;
@@ -43,19 +49,81 @@ public class StatusSession {
         }
     }
 
+    // Server-side filters, null to allow all
+    private volatile EnumSet<Status.EventType> eventTypes;
+    private volatile Level severity;
+
     public StatusSession(Session session) {
         this.session = session;
     }
 
     public void statusChanged(Status status, Runnable closeHandler) {
-        PrintSocketClient.sendStream(session, createStatusStream(status), closeHandler);
+        statusChanged(new StatusFrame(status), closeHandler);
+    }
+
+    /**
+     * Sends the status event to this session unless filtered out, using the frame's shared encoding
+     */
+    // synchronized: called from both the status dispatch thread and the client's own requests
+    public synchronized void statusChanged(StatusFrame frame, Runnable closeHandler) {
+        Status status = frame.getStatus();
+        if (!isWanted(status)) {
+            return;
+        }
+
+        try {
+            PrintSocketClient.sendStream(session, frame.getEncoded(), closeHandler);
+        }
+        catch(JSONException e) {
+            log.error("Send stream failed", e);
+            return;
+        }
         // If this statusSession has printers flagged to return jobData, issue a jobData event after any 'retained' job events
         if (status.getCode() == WmiJobStatusMap.RETAINED.getParent() && isDataPrinter(status.getPrinter())) {
             PrintSocketClient.sendStream(session, createJobDataStream(status), closeHandler);
         }
     }
 
-    public void enableJobDataOnPrinter(String printer, int maxJobData, PrintingUtilities.Flavor dataFlavor) throws UnsupportedOperationException {
+    /**
+     * Reads the optional <code>eventTypes</code> and <code>severity</code> filters, replacing any given by an earlier call
+     */
+    public void setFilters(JSONObject params) throws JSONException {
+        JSONArray types = params.optJSONArray("eventTypes");
+        if (types != null) {
+            EnumSet<Status.EventType> parsed = EnumSet.noneOf(Status.EventType.class);
+            for(int i = 0; i < types.length(); i++) {
+                try {
+                    parsed.add(Status.EventType.valueOf(types.getString(i).toUpperCase(Locale.ENGLISH)));
+                }
+                catch(IllegalArgumentException e) {
+                    throw new IllegalArgumentException(String.format("Unknown event type \"%s\"", types.getString(i)));
+                }
+            }
+            eventTypes = parsed;
+        }
+
+        if (params.has("severity")) {
+            Level level = Level.toLevel(params.getString("severity"), null);
+            if (level == null) {
+                throw new IllegalArgumentException(String.format("Unknown severity \"%s\"", params.getString("severity")));
+            }
+            severity = level;
+        }
+    }
+
+    /**
+     * @return If this status passes the session's filters
+     */
+    public boolean isWanted(Status status) {
+        EnumSet<Status.EventType> types = eventTypes;
+        if (types != null && !types.contains(status.getEventType())) {
+            return false;
+        }
+        Level minimum = severity;
+        return minimum == null || status.getCode().getLevel().isMoreSpecificThan(minimum);
+    }
+
+    public synchronized void enableJobDataOnPrinter(String printer, int maxJobData, PrintingUtilities.Flavor dataFlavor) throws UnsupportedOperationException {
         if (!SystemUtilities.isWindows()) {
             throw new UnsupportedOperationException("Job data listeners are only supported on Windows");
         }
@@ -86,23 +154,6 @@ public class StatusSession {
         return streamEvent;
     }
 
-    private StreamEvent createStatusStream(Status status) {
-        StreamEvent streamEvent = new StreamEvent(StreamEvent.Stream.PRINTER, StreamEvent.Type.ACTION)
-                .withData("printerName", status.sanitizePrinterName())
-                .withData("eventType", status.getEventType())
-                .withData("statusText", status.getCode().name())
-                .withData("severity", status.getCode().getLevel())
-                .withData("statusCode", status.getRawCode())
-                .withData("message", status.toString());
-        if(status.getJobId() > 0) {
-            streamEvent.withData("jobId", status.getJobId());
-        }
-        if(status.getJobName() != null) {
-            streamEvent.withData("jobName", status.getJobName());
-        }
-        return streamEvent;
-    }
-
     private String getJobData(int jobId, String printer) {
         String data = null;
         try {
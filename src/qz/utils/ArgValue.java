@@ -73,8 +73,10 @@ public enum ArgValue {
         "tray.strictmode"),
     TRAY_IDLE_PRINTERS(PREFERENCES, "Enable/disable idle crawling of printers and their media information for faster initial results", null, true,
         "tray.idle.printers"),
-    TRAY_IDLE_JAVAFX(PREFERENCES, "Enable/disable idle starting of JavaFX for better initial performance", null, true,
+    TRAY_IDLE_JAVAFX(PREFERENCES, "Enable/disable starting JavaFX in the background at launch for better initial performance", null, true,
         "tray.idle.javafx"),
+    TRAY_IDLE_JAVAFX_HEADLESS(PREFERENCES, "Headless mode only: Enable/disable starting JavaFX in the background at launch", null, true,
+        "tray.idle.javafx.headless"),
     TRAY_DIALOG_ENDPOINT(PREFERENCES, "Headless mode only: Enable a custom endpoint for dialogs", null, null,
                          "tray.dialog.endpoint"),
     SECURITY_FILE_ENABLED(PREFERENCES, "Enable/disable all File Communications features", null, true,
@@ -115,8 +117,16 @@ public enum ArgValue {
         "log.size"),
     AUTHCERT_OVERRIDE(PREFERENCES, "Override the trusted root certificate in the software.", null, null,
         "authcert.override", "trustedRootCert"),
+    PRINT_PDF_MEMORY(PREFERENCES, "Maximum main memory (in MB) used to buffer a single PDF document before spilling to temporary scratch files", null, 64,
+        "print.pdf.memory"),
+    PRINT_HTML_VIEWS(PREFERENCES, "Maximum number of HTML documents rendered at the same time, each using its own off-screen browser", null, 2,
+        "print.html.views"),
+    PRINT_HTML_CACHE(PREFERENCES, "Memory (in MB) used to reuse rendered HTML pages with identical content, size and zoom, 0 to disable.  Pages are matched by content or URL validators only, resources they reference are not checked", null, 0,
+        "print.html.cache"),
     PRINTER_DETAILS_DEBUG(PREFERENCES, "Debug printer details to the logs as they're crawled.  Helpful for debugging driver-related hard-crashes.", null, false,
         "printer.details.debug"),
+    PRINTER_DETAILS_TIMEOUT(PREFERENCES, "Maximum time (in milliseconds) to wait on a single printer's driver when listing printer details.  Printers exceeding it are listed with an error instead", null, 10000,
+        "printer.details.timeout"),
     PRINTER_STATUS_JOB_DATA(PREFERENCES, "Return all raw (binary) job data with job statuses (use with caution)", null, false,
         "printer.status.jobdata");
 
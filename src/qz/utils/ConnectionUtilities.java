@@ -10,8 +10,10 @@
 package qz.utils;
 
 import java.awt.*;
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.net.HttpURLConnection;
 import java.net.MalformedURLException;
 import java.net.URISyntaxException;
 import java.net.URL;
@@ -45,18 +47,43 @@ public final class ConnectionUtilities {
     public static InputStream getInputStream(String urlString, boolean protocolRestricted) throws IOException {
         try {
             URL url = new URL(urlString);
-            if(protocolRestricted) {
-                String allowed = PrefsSearch.getString(ArgValue.SECURITY_DATA_PROTOCOLS);
-                if(!isAllowed(allowed, url)) {
-                    log.error("URL '{}' is not a valid http or https location.  Configure property '{}' to modify this behavior.", url, ArgValue.SECURITY_DATA_PROTOCOLS.getMatch());
-                    throw new IOException(String.format("URL '%s' is not a valid [%s] location", url, allowed));
-                }
+            checkProtocol(url, protocolRestricted);
+            return openConnection(url).getInputStream();
+        } catch(IOException e) {
+            if(e instanceof SSLHandshakeException) {
+                logSslInformation(urlString);
             }
-            URLConnection urlConn = url.openConnection();
-            for( String key : getRequestProperties().keySet()) {
-                urlConn.setRequestProperty(key, requestProps.get(key));
+            throw e;
+        }
+    }
+
+    /**
+     * Requests only the headers of an http or https URL, e.g. to tell if its content changed since it was last read.
+     * Applies the same protocol restrictions and request properties as {@link #getInputStream(String, boolean)}.
+     *
+     * @param urlString an absolute URL giving location of resource to check.
+     * @param timeout   connect and read timeout, in milliseconds
+     * @return The answered connection to read the status and headers from, which the caller must disconnect.
+     */
+    public static HttpURLConnection getHeaders(String urlString, boolean protocolRestricted, int timeout) throws IOException {
+        try {
+            URL url = new URL(urlString);
+            checkProtocol(url, protocolRestricted);
+            URLConnection urlConn = openConnection(url);
+            if(!(urlConn instanceof HttpURLConnection)) {
+                throw new IOException(String.format("URL '%s' is not an http or https location", url));
             }
-            return urlConn.getInputStream();
+            HttpURLConnection http = (HttpURLConnection)urlConn;
+            http.setConnectTimeout(timeout);
+            http.setReadTimeout(timeout);
+            http.setRequestMethod("HEAD");
+            try {
+                http.getResponseCode();
+            } catch(IOException e) {
+                http.disconnect();
+                throw e;
+            }
+            return http;
         } catch(IOException e) {
             if(e instanceof SSLHandshakeException) {
                 logSslInformation(urlString);
@@ -65,6 +92,47 @@ public final class ConnectionUtilities {
         }
     }
 
+    private static URLConnection openConnection(URL url) throws IOException {
+        URLConnection urlConn = url.openConnection();
+        for( String key : getRequestProperties().keySet()) {
+            urlConn.setRequestProperty(key, requestProps.get(key));
+        }
+        return urlConn;
+    }
+
+    /**
+     * Returns the local file a <code>file:</code> URL points to, allowing callers to read it directly
+     * instead of through a stream.  Returns <code>null</code> for any other type of URL.
+     *
+     * @param urlString an absolute URL giving location of resource to read.
+     */
+    public static File getLocalFile(String urlString, boolean protocolRestricted) throws IOException {
+        URL url = new URL(urlString);
+        if(!"file".equalsIgnoreCase(url.getProtocol())) {
+            return null;
+        }
+        checkProtocol(url, protocolRestricted);
+        try {
+            return Paths.get(url.toURI()).normalize().toFile();
+        }
+        catch(URISyntaxException | IllegalArgumentException e) {
+            return null; // e.g. UNC paths, let URLConnection handle it
+        }
+    }
+
+    /**
+     * Throws if <code>protocolRestricted</code> and the URL's protocol isn't allowed by <code>security.data.protocols</code>
+     */
+    private static void checkProtocol(URL url, boolean protocolRestricted) throws IOException {
+        if(protocolRestricted) {
+            String allowed = PrefsSearch.getString(ArgValue.SECURITY_DATA_PROTOCOLS);
+            if(!isAllowed(allowed, url)) {
+                log.error("URL '{}' is not a valid http or https location.  Configure property '{}' to modify this behavior.", url, ArgValue.SECURITY_DATA_PROTOCOLS.getMatch());
+                throw new IOException(String.format("URL '%s' is not a valid [%s] location", url, allowed));
+            }
+        }
+    }
+
     private static boolean isAllowed(String allowed, URL url) {
         if(url == null) return false;
         String urlProtocol = url.getProtocol();
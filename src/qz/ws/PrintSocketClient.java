@@ -790,16 +790,39 @@ public class PrintSocketClient {
      */
     public static void sendStream(Session session, StreamEvent event) throws ClosedChannelException {
         try {
-            JSONObject stream = new JSONObject();
-            stream.put("type", event.getStreamType());
-            stream.put("event", event.toJSON());
-            send(session, stream);
+            send(session, encodeStream(event));
         }
         catch(JSONException e) {
             log.error("Send stream failed", e);
         }
     }
 
+    /**
+     * @return The message sent for {@code event}, so the same event can be sent to many sessions while only encoded once
+     */
+    public static String encodeStream(StreamEvent event) throws JSONException {
+        JSONObject stream = new JSONObject();
+        stream.put("type", event.getStreamType());
+        stream.put("event", event.toJSON());
+        return stream.toString();
+    }
+
+    /**
+     * Sends a stream message already encoded by {@link #encodeStream(StreamEvent)}
+     */
+    public static void sendStream(Session session, String encodedStream, Runnable closeHandler) {
+        try {
+            send(session, encodedStream);
+        } catch(ClosedChannelException e) {
+            log.error("Stream is closed, could not send message");
+            if(closeHandler != null) {
+                closeHandler.run();
+            } else {
+                log.error("Channel was closed before stream could be sent, but no close handler is configured.");
+            }
+        }
+    }
+
     public static void sendStream(Session session, StreamEvent event, DeviceListener listener) {
         try {
             sendStream(session, event);
@@ -832,10 +855,14 @@ public class PrintSocketClient {
      * @param session WebSocket session
      * @param reply   JSON Object of reply to web API
      */
-    private static synchronized void send(Session session, JSONObject reply) throws WebSocketException, ClosedChannelException {
+    private static void send(Session session, JSONObject reply) throws WebSocketException, ClosedChannelException {
+        send(session, reply.toString());
+    }
+
+    private static synchronized void send(Session session, String reply) throws WebSocketException, ClosedChannelException {
         try {
             if(session.isOpen()) {
-                session.getRemote().sendString(reply.toString());
+                session.getRemote().sendString(reply);
             } else {
                 throw new ClosedSocketException("Channel was closed before message could be sent");
             }
@@ -0,0 +1,140 @@
+package qz.printer;
+
+import org.codehaus.jettison.json.JSONException;
+import org.codehaus.jettison.json.JSONObject;
+import org.testng.annotations.Test;
+import qz.printer.info.NativePrinter;
+import qz.printer.info.PrintServiceStub;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.testng.Assert.*;
+
+/**
+ * Drives {@code PrinterDetails} with stub printers whose "driver" can be made slow or hang
+ */
+public class PrinterDetailsTests {
+
+    private final Map<String,AtomicInteger> queries = new ConcurrentHashMap<>();
+    private final CountDownLatch hang = new CountDownLatch(1);
+
+    private final Function<NativePrinter,JSONObject> driver = printer -> {
+        queries.computeIfAbsent(printer.getPrinterId(), id -> new AtomicInteger()).incrementAndGet();
+        try {
+            if (printer.getPrinterId().startsWith("Hung")) {
+                hang.await();
+            } else if (printer.getPrinterId().startsWith("Slow")) {
+                Thread.sleep(200);
+            } else if (printer.getPrinterId().startsWith("Broken")) {
+                throw new IllegalStateException("Driver crashed");
+            }
+            return new JSONObject().put("driver", printer.getPrinterId() + " driver");
+        }
+        catch(Exception e) {
+            throw new IllegalStateException(e);
+        }
+    };
+
+    @Test
+    public void hungDriverOnlyDelaysItsOwnPrinter() throws Exception {
+        PrinterDetails details = new PrinterDetails(driver, 4, 500);
+        List<NativePrinter> printers = printers("Fast-1", "Hung-1", "Fast-2", "Broken-1");
+
+        try {
+            long start = System.currentTimeMillis();
+            List<JSONObject> json = details.get(printers);
+            long elapsed = System.currentTimeMillis() - start;
+
+            assertTrue(elapsed < 2000, "Waited " + elapsed + "ms");
+            assertEquals(json.get(0).getString("driver"), "Fast-1 driver");
+            assertTrue(json.get(1).getString("error").contains("Timed out"));
+            assertEquals(json.get(2).getString("driver"), "Fast-2 driver");
+            assertTrue(json.get(3).getString("error").contains("Driver crashed"));
+
+            // the hung driver isn't queried again while its first query is running, failures are retried
+            json = details.get(printers);
+            assertTrue(json.get(1).has("error"));
+            assertEquals(queries.get("Hung-1").get(), 1);
+            assertEquals(queries.get("Broken-1").get(), 2);
+            assertEquals(queries.get("Fast-1").get(), 1);
+        }
+        finally {
+            hang.countDown();
+        }
+    }
+
+    @Test
+    public void printersQueriedConcurrently() throws Exception {
+        PrinterDetails details = new PrinterDetails(driver, 4, 5000);
+        List<NativePrinter> printers = printers("Slow-1", "Slow-2", "Slow-3", "Slow-4", "Slow-5", "Slow-6", "Slow-7", "Slow-8");
+
+        long start = System.currentTimeMillis();
+        List<JSONObject> json = details.get(printers);
+        long elapsed = System.currentTimeMillis() - start;
+
+        assertEquals(json.size(), 8);
+        assertEquals(json.get(7).getString("driver"), "Slow-8 driver");
+        assertTrue(elapsed < 1200, "Serial-like wait of " + elapsed + "ms");
+    }
+
+    @Test
+    public void detailsRememberedUntilChanged() throws Exception {
+        PrinterDetails details = new PrinterDetails(driver, 2, 5000);
+        List<NativePrinter> printers = printers("Cached-1", "Cached-2");
+
+        details.get(printers);
+        details.get(printers);
+        assertEquals(queries.get("Cached-1").get(), 1);
+
+        // service replaced, see #1259
+        printers.get(0).setPrintService(PrintServiceStub.create("Cached-1"));
+        details.get(printers);
+        assertEquals(queries.get("Cached-1").get(), 2);
+        assertEquals(queries.get("Cached-2").get(), 1);
+
+        details.invalidate();
+        details.get(printers);
+        assertEquals(queries.get("Cached-2").get(), 2);
+
+        details.setTtl(0);
+        details.get(printers);
+        assertEquals(queries.get("Cached-2").get(), 3);
+    }
+
+    @Test
+    public void expiredDetailsAskTheDriverAgain() throws Exception {
+        PrinterDetails details = new PrinterDetails(printer -> {
+            try {
+                return new JSONObject().put("driver", printer.getDriver().value());
+            }
+            catch(JSONException e) {
+                throw new IllegalStateException(e);
+            }
+        }, 1, 5000);
+        List<NativePrinter> printers = printers("Refresh-1");
+        printers.get(0).setDriver("ZPL");
+
+        assertEquals(details.get(printers).get(0).getString("driver"), "ZPL");
+        assertEquals(details.get(printers).get(0).getString("driver"), "ZPL");
+
+        // past the time-to-live the printer's own cached driver details are dropped too
+        details.setTtl(0);
+        assertNotEquals(details.get(printers).get(0).optString("driver"), "ZPL");
+    }
+
+    private static List<NativePrinter> printers(String... names) {
+        List<NativePrinter> printers = new ArrayList<>();
+        for(String name : names) {
+            NativePrinter printer = new NativePrinter(name);
+            printer.setPrintService(PrintServiceStub.create(name));
+            printers.add(printer);
+        }
+        return printers;
+    }
+}
@@ -0,0 +1,94 @@
+package qz.printer.action;
+
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.Random;
+
+import static org.testng.Assert.*;
+
+/**
+ * Compares the raster quarter-turn rotations against the {@code Graphics2D} rotation they replace.
+ */
+public class ImageRotationTests {
+
+    private static final int[] TYPES = {
+            BufferedImage.TYPE_INT_RGB,
+            BufferedImage.TYPE_INT_ARGB,
+            BufferedImage.TYPE_3BYTE_BGR,
+            BufferedImage.TYPE_4BYTE_ABGR,
+            BufferedImage.TYPE_BYTE_GRAY,
+            BufferedImage.TYPE_BYTE_BINARY
+    };
+
+    private static final double[] ANGLES = { 90, 180, 270, -90, 450 };
+
+    @DataProvider(name = "images")
+    public Object[][] images() {
+        ArrayList<Object[]> retMatrix = new ArrayList<>();
+        Random random = new Random(1234);
+        for(int type : TYPES) {
+            // even, odd and mixed dimensions shift differently about the center
+            for(Dimension size : new Dimension[] {new Dimension(40, 24), new Dimension(37, 21), new Dimension(20, 33)}) {
+                BufferedImage image = randomImage(type, size.width, size.height, random);
+                for(double angle : ANGLES) {
+                    retMatrix.add(new Object[] {String.format("type %d, %dx%d, %s deg", type, size.width, size.height, angle), image, angle});
+                }
+            }
+
+            // subimages share a translated raster with their parent
+            BufferedImage sub = randomImage(type, 50, 40, random).getSubimage(7, 5, 29, 22);
+            retMatrix.add(new Object[] {String.format("type %d, subimage", type), sub, 90d});
+        }
+        return retMatrix.toArray(new Object[retMatrix.size()][]);
+    }
+
+    @Test(dataProvider = "images")
+    public void quarterTurnMatchesGraphics(String title, BufferedImage image, double angle) {
+        BufferedImage expected = PrintImage.rotateGraphics(image, angle, RenderingHints.VALUE_DITHER_DEFAULT, RenderingHints.VALUE_INTERPOLATION_BICUBIC);
+        BufferedImage actual = PrintImage.rotateQuarters(image, angle);
+
+        assertNotNull(actual, title);
+        assertEquals(actual.getWidth(), expected.getWidth(), title);
+        assertEquals(actual.getHeight(), expected.getHeight(), title);
+
+        for(int y = 0; y < expected.getHeight(); y++) {
+            for(int x = 0; x < expected.getWidth(); x++) {
+                int expectedRgb = expected.getRGB(x, y);
+                if (image.getType() == BufferedImage.TYPE_BYTE_GRAY) {
+                    // drawing copies gray samples into each color channel, compare the samples themselves
+                    int expectedGray = expectedRgb >>> 24 == 0? 0xFF:(expectedRgb >> 16) & 0xFF;
+                    assertEquals(actual.getRaster().getSample(x, y, 0), expectedGray, String.format("%s at %d,%d", title, x, y));
+                } else if (image.getType() == BufferedImage.TYPE_BYTE_BINARY) {
+                    // drawn results are never translucent here, uncovered pixels become white instead
+                    int expectedValue = expectedRgb >>> 24 == 0? 0xFFFFFFFF:expectedRgb;
+                    assertEquals(actual.getRGB(x, y), expectedValue, String.format("%s at %d,%d", title, x, y));
+                } else {
+                    assertEquals(actual.getRGB(x, y), expectedRgb, String.format("%s at %d,%d", title, x, y));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void unsupportedTypesFallBack() {
+        BufferedImage indexed = new BufferedImage(10, 10, BufferedImage.TYPE_BYTE_INDEXED);
+        assertNull(PrintImage.rotateQuarters(indexed, 90));
+        assertNotNull(PrintImage.rotate(indexed, 90, RenderingHints.VALUE_DITHER_DEFAULT, RenderingHints.VALUE_INTERPOLATION_BICUBIC));
+    }
+
+    private static BufferedImage randomImage(int type, int width, int height, Random random) {
+        BufferedImage image = new BufferedImage(width, height, type);
+        for(int y = 0; y < height; y++) {
+            for(int x = 0; x < width; x++) {
+                // keep alpha fully on or off, drawing rounds partially transparent colors
+                int alpha = random.nextInt(4) == 0? 0:0xFF000000;
+                image.setRGB(x, y, alpha | (random.nextInt() & 0xFFFFFF));
+            }
+        }
+        return image;
+    }
+}
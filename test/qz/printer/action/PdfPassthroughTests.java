@@ -0,0 +1,260 @@
+package qz.printer.action;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.apache.pdfbox.rendering.PDFRenderer;
+import org.codehaus.jettison.json.JSONArray;
+import org.codehaus.jettison.json.JSONObject;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+import qz.printer.PrintOptions;
+import qz.printer.PrintOutput;
+import qz.printer.action.raw.RawImageTests;
+import qz.utils.PrintingUtilities;
+
+import javax.print.*;
+import javax.print.attribute.*;
+import javax.print.event.PrintJobAttributeListener;
+import javax.print.event.PrintJobEvent;
+import javax.print.event.PrintJobListener;
+import javax.print.event.PrintServiceAttributeListener;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.testng.Assert.*;
+
+/**
+ * Sends PDFs to a stub print service, comparing the passthrough spool against rendering the same pages locally.
+ */
+public class PdfPassthroughTests {
+
+    private static final int PAGES = 20;
+
+    private Path sample;
+
+    @BeforeClass
+    public void createSample() throws IOException {
+        RawImageTests.setupEnvironment();
+
+        sample = Files.createTempFile("passthrough-", ".pdf");
+        try(PDDocument doc = new PDDocument()) {
+            for(int pg = 1; pg <= PAGES; pg++) {
+                PDPage page = new PDPage();
+                doc.addPage(page);
+                try(PDPageContentStream content = new PDPageContentStream(doc, page)) {
+                    content.beginText();
+                    content.setFont(PDType1Font.HELVETICA, 24);
+                    content.newLineAtOffset(72, 700);
+                    content.showText("Passthrough page " + pg);
+                    content.endText();
+                    content.addRect(72, 72, 468, 540);
+                    content.stroke();
+                }
+            }
+            doc.save(sample.toFile());
+        }
+    }
+
+    @AfterClass
+    public void removeSample() throws IOException {
+        Files.deleteIfExists(sample);
+    }
+
+    @Test
+    public void passthroughSendsSelectedPages() throws Exception {
+        StubPrintService service = new StubPrintService(true);
+        PrintPDF pdf = parse("{ passthrough: true, pageRanges: '2-4,10' }");
+        try {
+            PrintOptions.Pixel pxlOpts = options().getPixelOptions();
+            assertNull(pdf.findPassthroughBlocker(service, pxlOpts));
+
+            long start = System.currentTimeMillis();
+            pdf.printPassthrough(service, pxlOpts);
+            long passthroughMillis = System.currentTimeMillis() - start;
+
+            assertEquals(service.jobs.size(), 1);
+            try(PDDocument spooled = PDDocument.load(service.jobs.get(0))) {
+                assertEquals(spooled.getNumberOfPages(), 4);
+            }
+
+            // the same pages rendered locally, as the raster path would spool them
+            long rasterBytes = 0;
+            start = System.currentTimeMillis();
+            try(PDDocument doc = PDDocument.load(sample.toFile())) {
+                PDFRenderer renderer = new PDFRenderer(doc);
+                for(int pg : new int[] {1, 2, 3, 9}) {
+                    BufferedImage image = renderer.renderImageWithDPI(pg, 300);
+                    rasterBytes += (long)image.getWidth() * image.getHeight() * 3;
+                }
+            }
+            long rasterMillis = System.currentTimeMillis() - start;
+
+            System.out.printf("Passthrough: %d bytes in %dms, local rendering: %d bytes in %dms%n",
+                              service.jobs.get(0).length, passthroughMillis, rasterBytes, rasterMillis);
+            assertTrue(service.jobs.get(0).length < rasterBytes);
+        }
+        finally {
+            pdf.cleanup();
+        }
+    }
+
+    @Test
+    public void passthroughFallsBack() throws Exception {
+        PrintOptions.Pixel pxlOpts = options().getPixelOptions();
+
+        PrintPDF pdf = parse("{ passthrough: true }");
+        try {
+            assertNotNull(pdf.findPassthroughBlocker(new StubPrintService(false), pxlOpts), "PDF flavor unsupported");
+        }
+        finally {
+            pdf.cleanup();
+        }
+
+        pdf = parse("{ passthrough: true, ignoreTransparency: true }");
+        try {
+            assertNotNull(pdf.findPassthroughBlocker(new StubPrintService(true), pxlOpts), "Local rendering option");
+        }
+        finally {
+            pdf.cleanup();
+        }
+    }
+
+    private PrintPDF parse(String dataOptions) throws Exception {
+        JSONObject data = new JSONObject()
+                .put("type", "pixel")
+                .put("format", "pdf")
+                .put("flavor", "file")
+                .put("data", sample.toUri().toString())
+                .put("options", new JSONObject(dataOptions));
+
+        PrintPDF pdf = new PrintPDF();
+        pdf.parseData(new JSONArray().put(data), options());
+        return pdf;
+    }
+
+    private PrintOptions options() throws Exception {
+        PrintOutput output = new PrintOutput(new JSONObject().put("file", sample.resolveSibling("passthrough-test.bin")));
+        return new PrintOptions(new JSONObject(), output, PrintingUtilities.Format.PDF);
+    }
+
+    /**
+     * Print service that keeps the documents sent to it in memory
+     */
+    private static class StubPrintService implements PrintService {
+        private final List<byte[]> jobs = new ArrayList<>();
+        private final boolean acceptsPdf;
+
+        StubPrintService(boolean acceptsPdf) {
+            this.acceptsPdf = acceptsPdf;
+        }
+
+        @Override
+        public String getName() { return "Stub printer"; }
+
+        @Override
+        public DocPrintJob createPrintJob() {
+            return new DocPrintJob() {
+                private final List<PrintJobListener> listeners = new ArrayList<>();
+
+                @Override
+                public PrintService getPrintService() { return StubPrintService.this; }
+
+                @Override
+                public PrintJobAttributeSet getAttributes() { return new HashPrintJobAttributeSet(); }
+
+                @Override
+                public void addPrintJobListener(PrintJobListener listener) { listeners.add(listener); }
+
+                @Override
+                public void removePrintJobListener(PrintJobListener listener) { listeners.remove(listener); }
+
+                @Override
+                public void addPrintJobAttributeListener(PrintJobAttributeListener listener, PrintJobAttributeSet attributes) {}
+
+                @Override
+                public void removePrintJobAttributeListener(PrintJobAttributeListener listener) {}
+
+                @Override
+                public void print(Doc doc, PrintRequestAttributeSet attributes) throws PrintException {
+                    if (!isDocFlavorSupported(doc.getDocFlavor())) {
+                        throw new PrintException("Unsupported flavor " + doc.getDocFlavor());
+                    }
+
+                    ByteArrayOutputStream spool = new ByteArrayOutputStream();
+                    try(InputStream in = doc.getStreamForBytes()) {
+                        byte[] buffer = new byte[8192];
+                        int read;
+                        while((read = in.read(buffer)) != -1) {
+                            spool.write(buffer, 0, read);
+                        }
+                    }
+                    catch(IOException e) {
+                        throw new PrintException(e);
+                    }
+                    jobs.add(spool.toByteArray());
+
+                    PrintJobEvent event = new PrintJobEvent(this, PrintJobEvent.JOB_COMPLETE);
+                    for(PrintJobListener listener : listeners) {
+                        listener.printJobCompleted(event);
+                    }
+                }
+            };
+        }
+
+        @Override
+        public void addPrintServiceAttributeListener(PrintServiceAttributeListener listener) {}
+
+        @Override
+        public void removePrintServiceAttributeListener(PrintServiceAttributeListener listener) {}
+
+        @Override
+        public PrintServiceAttributeSet getAttributes() { return new HashPrintServiceAttributeSet(); }
+
+        @Override
+        public <T extends PrintServiceAttribute> T getAttribute(Class<T> category) { return null; }
+
+        @Override
+        public DocFlavor[] getSupportedDocFlavors() {
+            return acceptsPdf? new DocFlavor[] {DocFlavor.INPUT_STREAM.PDF, DocFlavor.SERVICE_FORMATTED.PRINTABLE}:
+                    new DocFlavor[] {DocFlavor.SERVICE_FORMATTED.PRINTABLE};
+        }
+
+        @Override
+        public boolean isDocFlavorSupported(DocFlavor flavor) {
+            for(DocFlavor supported : getSupportedDocFlavors()) {
+                if (supported.equals(flavor)) { return true; }
+            }
+            return false;
+        }
+
+        @Override
+        public Class<?>[] getSupportedAttributeCategories() { return new Class<?>[0]; }
+
+        @Override
+        public boolean isAttributeCategorySupported(Class<? extends Attribute> category) { return false; }
+
+        @Override
+        public Object getDefaultAttributeValue(Class<? extends Attribute> category) { return null; }
+
+        @Override
+        public Object getSupportedAttributeValues(Class<? extends Attribute> category, DocFlavor flavor, AttributeSet attributes) { return null; }
+
+        @Override
+        public boolean isAttributeValueSupported(Attribute attrval, DocFlavor flavor, AttributeSet attributes) { return false; }
+
+        @Override
+        public AttributeSet getUnsupportedAttributes(DocFlavor flavor, AttributeSet attributes) { return null; }
+
+        @Override
+        public ServiceUIFactory getServiceUIFactory() { return null; }
+    }
+}
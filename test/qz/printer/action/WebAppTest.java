@@ -15,7 +15,10 @@ import java.lang.reflect.Constructor;
 import java.lang.reflect.Field;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.*;
 
 public class WebAppTest {
 
@@ -44,6 +47,13 @@ public class WebAppTest {
                 log.info("All raster tests passed");
             }
 
+            int rasterConcurrentTests = 100;
+            if (args.length > 5) { rasterConcurrentTests = Integer.parseInt(args[5]); }
+
+            if (!testRasterThroughput(rasterConcurrentTests)) {
+                log.error("Testing concurrent rasters failed");
+            }
+
 
             // VECTOR //
 
@@ -155,6 +165,54 @@ public class WebAppTest {
         return true;
     }
 
+    /**
+     * Rasters the same set of pages one at a time, then from several threads at once, logging the throughput of each
+     */
+    public static boolean testRasterThroughput(int trials) throws Throwable {
+        WebAppModel[] models = new WebAppModel[trials];
+        for(int i = 0; i < trials; i++) {
+            double printW = Math.max(2, (int)(Math.random() * 40) / 10d) * 72d;
+            double printH = Math.max(3, (int)(Math.random() * 60) / 10d) * 72d;
+            models[i] = buildModel("concurrent-" + i, printW, printH, 1, true, (int)(Math.random() * 360));
+        }
+
+        long start = System.nanoTime();
+        for(WebAppModel model : models) {
+            if (WebApp.raster(model) == null) {
+                log.error("Failed to create capture");
+                return false;
+            }
+        }
+        long serial = System.nanoTime() - start;
+
+        int threads = Math.max(2, Runtime.getRuntime().availableProcessors());
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<BufferedImage>> captures = new ArrayList<>();
+            start = System.nanoTime();
+            for(WebAppModel model : models) {
+                captures.add(executor.submit(() -> {
+                    try { return WebApp.raster(model); }
+                    catch(Throwable t) { throw new ExecutionException(t); }
+                }));
+            }
+            for(Future<BufferedImage> capture : captures) {
+                if (capture.get() == null) {
+                    log.error("Failed to create concurrent capture");
+                    return false;
+                }
+            }
+        }
+        finally {
+            executor.shutdown();
+        }
+        long concurrent = System.nanoTime() - start;
+
+        log.info("Rastered {} pages in {}ms one at a time, {}ms from {} threads", trials,
+                 TimeUnit.NANOSECONDS.toMillis(serial), TimeUnit.NANOSECONDS.toMillis(concurrent), threads);
+        return true;
+    }
+
     public static boolean testVectorKnownPrints(int trials) throws Throwable {
         PrinterJob job = buildVectorJob("vector-test-known");
         for(int i = 0; i < trials; i++) {
@@ -0,0 +1,83 @@
+package qz.printer.info;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Comparator;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.testng.Assert.*;
+
+/**
+ * Uses a temporary directory as a stand-in for <code>/etc/cups</code>
+ */
+public class CupsConfigWatcherTests {
+
+    private static final long EVENT_TIMEOUT = 15; // seconds, polling watch services can be slow
+
+    private Path configDir;
+    private Semaphore changes;
+    private CupsConfigWatcher watcher;
+
+    @BeforeMethod
+    public void setUp() throws IOException {
+        configDir = Files.createTempDirectory("cups-");
+        Files.write(configDir.resolve("printers.conf"), "<Printer Test>\n</Printer>\n".getBytes());
+        Files.write(configDir.resolve("cupsd.conf"), "LogLevel warn\n".getBytes());
+
+        changes = new Semaphore(0);
+        watcher = new CupsConfigWatcher(configDir, changes::release);
+        assertTrue(watcher.start());
+    }
+
+    @AfterMethod
+    public void tearDown() throws IOException {
+        watcher.stop();
+        try(Stream<Path> paths = Files.walk(configDir)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Test
+    public void printersConfReplaced() throws Exception {
+        // same as cupsd, which writes a new copy and renames it into place
+        Path pending = configDir.resolve("printers.conf.N");
+        Files.write(pending, "<Printer Test>\n</Printer>\n<Printer Other>\n</Printer>\n".getBytes());
+        Files.move(pending, configDir.resolve("printers.conf"), StandardCopyOption.REPLACE_EXISTING);
+
+        assertTrue(changes.tryAcquire(EVENT_TIMEOUT, TimeUnit.SECONDS), "Printer change not seen");
+    }
+
+    @Test
+    public void ppdAddedToNewDirectory() throws Exception {
+        Path ppdDir = Files.createDirectory(configDir.resolve("ppd"));
+        assertTrue(changes.tryAcquire(EVENT_TIMEOUT, TimeUnit.SECONDS), "PPD directory not seen");
+
+        Files.write(ppdDir.resolve("Other.ppd"), "*PPD-Adobe: \"4.3\"\n".getBytes());
+        assertTrue(changes.tryAcquire(EVENT_TIMEOUT, TimeUnit.SECONDS), "PPD not seen");
+    }
+
+    @Test
+    public void unrelatedFilesIgnored() throws Exception {
+        Files.write(configDir.resolve("cupsd.conf"), "LogLevel debug\n".getBytes());
+        assertFalse(changes.tryAcquire(2, TimeUnit.SECONDS), "Unrelated change reported");
+    }
+
+    @Test
+    public void burstsCoalesced() throws Exception {
+        for(int i = 0; i < 20; i++) {
+            Files.write(configDir.resolve("printers.conf"), ("<Printer Test" + i + ">\n</Printer>\n").getBytes());
+        }
+
+        assertTrue(changes.tryAcquire(EVENT_TIMEOUT, TimeUnit.SECONDS), "Printer change not seen");
+        Thread.sleep(1000);
+        assertTrue(changes.availablePermits() <= 1, "Burst reported " + (changes.availablePermits() + 1) + " times");
+    }
+}
@@ -0,0 +1,82 @@
+package qz.printer.info;
+
+import org.testng.annotations.Test;
+import qz.printer.status.IppFixture;
+
+import javax.print.attribute.standard.PrinterResolution;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.*;
+
+import static org.testng.Assert.*;
+
+/**
+ * Reads printers from a canned CUPS-Get-Printers response and sample PPDs
+ */
+public class CupsPrinterMapTests {
+
+    private static final Path RES_DIR = Paths.get("test/qz/printer/info/resources");
+    private static final Path PPD_DIR = RES_DIR.resolve("ppd");
+
+    @Test
+    public void printersFromIpp() throws IOException {
+        Map<String,NativePrinter> printers = new LinkedHashMap<>();
+        List<Map<String,String>> records = IppFixture.readGroups(RES_DIR.resolve("cups-get-printers.txt"), IppFixture.TAG_PRINTER);
+        assertEquals(records.size(), 3, "Operation attributes aren't a printer");
+        for(Map<String,String> record : records) {
+            NativePrinter printer = CupsPrinterMap.fromIpp(record, PPD_DIR);
+            printers.put(printer.getPrinterId(), printer);
+        }
+
+        assertEquals(printers.keySet(), new LinkedHashSet<>(Arrays.asList("Zebra_ZD420", "Office_Laser", "Raw_Queue")));
+
+        NativePrinter zebra = printers.get("Zebra_ZD420");
+        assertEquals(zebra.getDescription().value(), "Zebra ZD420 (Shipping)");
+        assertEquals(zebra.getConnection(), "usb://Zebra%20Technologies/ZTC%20ZD420-203dpi%20ZPL?serial=D2J181234567");
+        assertEquals(zebra.getDriverFile().value(), PPD_DIR.resolve("Zebra_ZD420.ppd").toString());
+
+        NativePrinter raw = printers.get("Raw_Queue");
+        assertTrue(raw.getDescription().isNull());
+        assertTrue(raw.getDriverFile().isNull(), "Queue without a PPD");
+        assertEquals(raw.getConnection(), "socket://192.168.1.30:9100");
+    }
+
+    @Test
+    public void ppdValues() throws IOException {
+        CupsPpd zebra = CupsPpd.read(PPD_DIR.resolve("Zebra_ZD420.ppd"));
+        assertEquals(zebra.getDefaultResolution(), new PrinterResolution(203, 203, PrinterResolution.DPI));
+        assertEquals(zebra.getResolutions(), Arrays.asList(new PrinterResolution(203, 203, PrinterResolution.DPI),
+                                                           new PrinterResolution(203, 203, PrinterResolution.DPI),
+                                                           new PrinterResolution(300, 300, PrinterResolution.DPI)));
+        assertFalse(zebra.isAirPrint());
+        assertEquals(zebra.getPcFileName(), "ZEBRA.PPD");
+
+        CupsPpd laser = CupsPpd.read(PPD_DIR.resolve("Office_Laser.ppd"));
+        assertEquals(laser.getDefaultResolution(), new PrinterResolution(600, 1200, PrinterResolution.DPI));
+        assertTrue(laser.isAirPrint());
+    }
+
+    @Test
+    public void ppdCachedUntilModified() throws IOException {
+        Path ppd = Files.createTempFile("cups-", ".ppd");
+        try {
+            Files.copy(PPD_DIR.resolve("Zebra_ZD420.ppd"), ppd, StandardCopyOption.REPLACE_EXISTING);
+            CupsPpd first = CupsPpd.read(ppd);
+            assertSame(CupsPpd.read(ppd), first);
+
+            Files.write(ppd, "*DefaultResolution: 300dpi\n".getBytes(StandardCharsets.US_ASCII));
+            Files.setLastModifiedTime(ppd, FileTime.fromMillis(System.currentTimeMillis() + 5000));
+            CupsPpd second = CupsPpd.read(ppd);
+            assertNotSame(second, first);
+            assertEquals(second.getDefaultResolution(), new PrinterResolution(300, 300, PrinterResolution.DPI));
+        }
+        finally {
+            Files.deleteIfExists(ppd);
+        }
+    }
+}
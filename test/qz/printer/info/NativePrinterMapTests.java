@@ -0,0 +1,127 @@
+package qz.printer.info;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import javax.print.PrintService;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.testng.Assert.*;
+
+/**
+ * Checks the indexed lookups of {@code NativePrinterMap} against a large list of stub print services
+ */
+public class NativePrinterMapTests {
+
+    private static final int PRINTERS = 5000;
+
+    private TestPrinterMap printers;
+
+    @BeforeMethod
+    public void setUp() {
+        printers = new TestPrinterMap();
+        printers.putAll(true, services("Queue-", PRINTERS));
+        printers.putAll(false, PrintServiceStub.named("Zebra ZD420 (Shipping)"), PrintServiceStub.named("HP LaserJet 4000"));
+    }
+
+    @Test
+    public void searchPrefersExactThenBeginsThenContains() {
+        assertEquals(printers.search("queue-42").getName(), "Queue-42");
+        assertEquals(printers.search("HP LaserJet 4000").getName(), "HP LaserJet 4000");
+        assertEquals(printers.search("zebra").getName(), "Zebra ZD420 (Shipping)");
+        assertEquals(printers.search("shipping").getName(), "Zebra ZD420 (Shipping)");
+        assertTrue(printers.search("Queue-123").getName().startsWith("Queue-123"));
+        assertNull(printers.search("missing"));
+    }
+
+    @Test
+    public void searchSeesChanges() {
+        assertNull(printers.search("label"));
+        printers.putAll(false, PrintServiceStub.named("Label Printer"));
+        assertEquals(printers.search("label").getName(), "Label Printer");
+
+        printers.putAll(true, PrintServiceStub.named("Label Printer"));
+        assertEquals(printers.size(), 1);
+        assertNull(printers.search("zebra"));
+    }
+
+    @Test
+    public void searchSeesEveryKindOfChange() {
+        NativePrinter label = new NativePrinter("Label Printer");
+        label.setPrintService(PrintServiceStub.named("Label Printer"));
+
+        printers.putIfAbsent(label.getPrinterId(), label);
+        assertSame(printers.search("label"), label);
+
+        assertTrue(printers.remove(label.getPrinterId(), label));
+        assertNull(printers.search("label"));
+
+        printers.compute(label.getPrinterId(), (id, old) -> label);
+        assertSame(printers.search("label"), label);
+
+        NativePrinter zebra = printers.search("zebra");
+        printers.computeIfPresent(zebra.getPrinterId(), (id, old) -> null);
+        assertNull(printers.search("zebra"));
+
+        assertTrue(printers.replace(label.getPrinterId(), label, zebra));
+        assertSame(printers.search("zebra"), zebra);
+        assertNull(printers.search("label"));
+    }
+
+    @Test(expectedExceptions = UnsupportedOperationException.class)
+    public void viewsAreReadOnly() {
+        printers.values().clear();
+    }
+
+    @Test
+    public void findMissingMatchesByName() {
+        PrintService replacement = PrintServiceStub.named("Queue-7");
+        List<PrintService> missing = printers.findMissing(false, new PrintService[] {replacement, PrintServiceStub.named("New Printer")});
+
+        assertEquals(missing.size(), 1);
+        assertEquals(missing.get(0).getName(), "New Printer");
+        // stale services are swapped for the newly listed one, per #1259
+        assertSame(printers.get(replacement).getPrintService().value(), replacement);
+        assertTrue(printers.contains(PrintServiceStub.named("Queue-4999")));
+        assertFalse(printers.contains(PrintServiceStub.named("Queue-5000")));
+        assertEquals(printers.lookupPrinterId("Queue-7"), "Queue-7");
+    }
+
+    @Test
+    public void exhaustiveListingScales() {
+        PrintService[] relisted = services("Queue-", PRINTERS);
+
+        long start = System.currentTimeMillis();
+        for(int i = 0; i < 20; i++) {
+            printers.putAll(true, relisted);
+            printers.search("Queue-" + i);
+        }
+        System.out.printf("20 relistings and searches of %d printers took %dms%n", PRINTERS, System.currentTimeMillis() - start);
+
+        assertEquals(printers.size(), PRINTERS);
+    }
+
+    private static PrintService[] services(String prefix, int count) {
+        PrintService[] services = new PrintService[count];
+        for(int i = 0; i < count; i++) {
+            services[i] = PrintServiceStub.named(prefix + i);
+        }
+        return services;
+    }
+
+    private static class TestPrinterMap extends NativePrinterMap {
+        @Override
+        public NativePrinterMap putAll(boolean exhaustive, PrintService... services) {
+            for(PrintService service : findMissing(exhaustive, services)) {
+                NativePrinter printer = new NativePrinter(service.getName());
+                printer.setPrintService(service);
+                put(printer.getPrinterId(), printer);
+            }
+            return this;
+        }
+
+        @Override
+        void fillAttributes(NativePrinter printer) {}
+    }
+}
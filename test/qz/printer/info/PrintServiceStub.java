@@ -0,0 +1,60 @@
+package qz.printer.info;
+
+import javax.print.PrintService;
+import java.lang.reflect.Proxy;
+
+/**
+ * Stub print services for tests, answering the "driver" queries of a {@link PrintService} without a real printer
+ */
+public class PrintServiceStub {
+
+    /**
+     * Answers the methods of a stub other than <code>getName</code>, <code>equals</code>, <code>hashCode</code> and
+     * <code>toString</code>
+     */
+    public interface Driver {
+        Object answer(String method, Object[] args);
+    }
+
+    private static final Driver NO_DRIVER = (method, args) -> null;
+
+    /**
+     * @return A stub only equal to itself
+     */
+    public static PrintService create(String name) {
+        return create(name, NO_DRIVER);
+    }
+
+    /**
+     * @return A stub only equal to itself, with the rest of its methods answered by {@code driver}
+     */
+    public static PrintService create(String name, Driver driver) {
+        return create(name, false, driver);
+    }
+
+    /**
+     * @return A stub with the name-based equality of the JDK's print services
+     */
+    public static PrintService named(String name) {
+        return create(name, true, NO_DRIVER);
+    }
+
+    private static PrintService create(String name, boolean equalByName, Driver driver) {
+        return (PrintService)Proxy.newProxyInstance(PrintService.class.getClassLoader(), new Class<?>[] {PrintService.class}, (proxy, method, args) -> {
+            switch(method.getName()) {
+                case "getName":
+                case "toString":
+                    return name;
+                case "equals":
+                    if (equalByName) {
+                        return args[0] instanceof PrintService && ((PrintService)args[0]).getName().equals(name);
+                    }
+                    return proxy == args[0];
+                case "hashCode":
+                    return equalByName? name.hashCode():System.identityHashCode(proxy);
+                default:
+                    return driver.answer(method.getName(), args);
+            }
+        });
+    }
+}
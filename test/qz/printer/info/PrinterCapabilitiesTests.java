@@ -0,0 +1,176 @@
+package qz.printer.info;
+
+import org.testng.SkipException;
+import org.testng.annotations.Test;
+import qz.utils.SystemUtilities;
+
+import javax.print.DocFlavor;
+import javax.print.PrintService;
+import javax.print.attribute.ResolutionSyntax;
+import javax.print.attribute.standard.Media;
+import javax.print.attribute.standard.MediaSizeName;
+import javax.print.attribute.standard.MediaTray;
+import javax.print.attribute.standard.PrinterResolution;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.testng.Assert.*;
+
+/**
+ * Counts driver queries made through a stub print service to check {@code NativePrinter.getCapabilities()} only
+ * asks once per printer change
+ */
+public class PrinterCapabilitiesTests {
+
+    private static final PrinterResolution DPI_203 = new PrinterResolution(203, 203, ResolutionSyntax.DPI);
+    private static final PrinterResolution DPI_300 = new PrinterResolution(300, 300, ResolutionSyntax.DPI);
+    private static final Path PPD_DIR = Paths.get("test/qz/printer/info/resources/ppd");
+
+    private final Map<String,AtomicInteger> queries = new ConcurrentHashMap<>();
+    // what the stub driver reports, changed by tests to stand in for a tray or paper change
+    private volatile Media[] media = {MediaSizeName.NA_LETTER, MediaTray.MAIN};
+
+    @Test
+    public void capabilitiesGatheredOnce() {
+        NativePrinter printer = printer(service("Label"));
+
+        PrinterCapabilities capabilities = printer.getCapabilities();
+        assertEquals(capabilities.getDriver(), "ZPL");
+        assertEquals(capabilities.getConnection(), "usb://Zebra/ZD420");
+        assertEquals(capabilities.getDefaultResolution(), DPI_203);
+        assertEquals(capabilities.getResolutions().size(), 2);
+        assertEquals(capabilities.getMedia().length, 2);
+
+        for(int i = 0; i < 10; i++) {
+            assertSame(printer.getCapabilities(), capabilities);
+            assertEquals(printer.getResolutions().get(1), DPI_300);
+        }
+        assertEquals(queries.get("Label:Media").get(), 1);
+        assertEquals(queries.get("Label:PrinterResolution").get(), 1);
+    }
+
+    @Test
+    public void capabilitiesFollowPrinterChanges() {
+        NativePrinter printer = printer(service("Office"));
+        PrinterCapabilities first = printer.getCapabilities();
+
+        // relisted with the same service, nothing changed
+        printer.setPrintService(printer.getPrintService().value());
+        assertSame(printer.getCapabilities(), first);
+
+        // a replacement service for the same name, see #1259, is asked again
+        PrintService replacement = service("Office");
+        printer.setPrintService(replacement);
+        printer.setDriver("PCL");
+        printer.setResolution(DPI_300);
+
+        PrinterCapabilities second = printer.getCapabilities();
+        assertNotSame(second, first);
+        assertSame(second.getService(), replacement);
+        assertEquals(second.getDriver(), "PCL");
+        assertEquals(second.getConnection(), "usb://Zebra/ZD420");
+        assertEquals(second.getDefaultResolution(), DPI_300);
+        assertEquals(queries.get("Office:Media").get(), 2);
+    }
+
+    @Test
+    public void mediaChangesPickedUpOnceExpired() {
+        if (SystemUtilities.isWindows()) {
+            throw new SkipException("Reads driver details through the CUPS printer map");
+        }
+
+        NativePrinter printer = printer(service("Tray"));
+        PrinterCapabilities first = printer.getCapabilities();
+        assertEquals(first.getMedia().length, 2);
+
+        // e.g. a tray added at the printer, without the service being replaced
+        media = new Media[] {MediaSizeName.NA_LETTER, MediaTray.MAIN, MediaTray.MANUAL};
+        assertSame(printer.getCapabilities(), first);
+
+        PrinterCapabilities refreshed = printer.getCapabilities(0);
+        assertNotSame(refreshed, first);
+        assertEquals(refreshed.getMedia().length, 3);
+        assertSame(printer.getCapabilities(), refreshed);
+    }
+
+    @Test(timeOut = 5000)
+    public void serviceReplacedWhilePrinterBusy() throws Exception {
+        NativePrinter printer = printer(service("Shared"));
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        // e.g. a details worker gathering capabilities while the printer map relists, see #1259
+        Thread busy = new Thread(() -> {
+            synchronized(printer) {
+                locked.countDown();
+                try { release.await(); } catch(InterruptedException ignore) {}
+            }
+        });
+        busy.start();
+        assertTrue(locked.await(5, TimeUnit.SECONDS));
+
+        PrintService replacement = service("Shared");
+        printer.setPrintService(replacement); // must not wait for the printer
+        release.countDown();
+        busy.join();
+
+        assertSame(printer.getCapabilities().getService(), replacement);
+    }
+
+    @Test
+    public void listedConnectionSurvivesInvalidation() {
+        if (SystemUtilities.isWindows()) {
+            throw new SkipException("Reads driver details through the CUPS printer map");
+        }
+
+        Map<String,String> record = new HashMap<>();
+        record.put("printer-name", "Zebra_ZD420");
+        record.put("device-uri", "usb://Zebra/ZD420");
+        NativePrinter printer = CupsPrinterMap.fromIpp(record, PPD_DIR);
+        printer.setPrintService(service("Zebra_ZD420"));
+        assertEquals(printer.getCapabilities().getConnection(), "usb://Zebra/ZD420");
+
+        // e.g. after a CUPS configuration change, nothing sets the connection again
+        printer.invalidateCapabilities();
+        PrinterCapabilities gathered = printer.getCapabilities();
+        assertEquals(gathered.getConnection(), "usb://Zebra/ZD420");
+        assertEquals(gathered.getDriver(), "ZEBRA.PPD");
+        assertEquals(printer.getConnection(), "usb://Zebra/ZD420");
+    }
+
+    private static NativePrinter printer(PrintService service) {
+        NativePrinter printer = new NativePrinter(service.getName());
+        printer.setPrintService(service);
+        printer.setDriver("ZPL");
+        printer.setConnection("usb://Zebra/ZD420");
+        printer.setResolution(DPI_203);
+        return printer;
+    }
+
+    private PrintService service(String name) {
+        return PrintServiceStub.create(name, (method, args) -> {
+            switch(method) {
+                case "getSupportedDocFlavors":
+                    return new DocFlavor[] {DocFlavor.SERVICE_FORMATTED.PRINTABLE};
+                case "getSupportedAttributeValues":
+                    Class<?> category = (Class<?>)args[0];
+                    queries.computeIfAbsent(name + ":" + category.getSimpleName(), c -> new AtomicInteger()).incrementAndGet();
+                    if (category == Media.class) {
+                        return media.clone();
+                    }
+                    if (category == PrinterResolution.class) {
+                        return new PrinterResolution[] {DPI_203, DPI_300};
+                    }
+                    return null;
+                default:
+                    return null;
+            }
+        });
+    }
+}
@@ -0,0 +1,108 @@
+package qz.printer.info;
+
+import org.codehaus.jettison.json.JSONArray;
+import org.codehaus.jettison.json.JSONObject;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import javax.print.attribute.ResolutionSyntax;
+import javax.print.attribute.standard.PrinterResolution;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.testng.Assert.*;
+
+/**
+ * Saves and reads back printer snapshots from a temporary file
+ */
+public class PrinterSnapshotTests {
+
+    private Path file;
+    private JSONArray details;
+    private Map<String,java.util.List<PrinterResolution>> resolutions;
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+        file = Files.createTempFile("printers-", ".json");
+        Files.delete(file);
+
+        details = new JSONArray();
+        details.put(new JSONObject().put("name", "Zebra ZD420").put("driver", "Zebra ZPL").put("default", true).put("density", 203));
+        details.put(new JSONObject().put("name", "HP LaserJet 4000").put("driver", "HP PCL").put("default", false).put("density", 600));
+
+        resolutions = new HashMap<>();
+        resolutions.put("Zebra ZD420", Arrays.asList(new PrinterResolution(203, 203, ResolutionSyntax.DPI),
+                                                     new PrinterResolution(300, 300, ResolutionSyntax.DPI)));
+        resolutions.put("HP LaserJet 4000", Collections.singletonList(null));
+    }
+
+    @AfterMethod
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Test
+    public void savedSnapshotReadBack() throws Exception {
+        PrinterSnapshot.write(file, "config-1", details, resolutions);
+        PrinterSnapshot snapshot = PrinterSnapshot.read(file, "config-1");
+        assertNotNull(snapshot);
+
+        JSONArray listed = snapshot.getPrinters(true);
+        assertEquals(listed.length(), 2);
+        assertEquals(listed.getJSONObject(0).getString("driver"), "Zebra ZPL");
+        assertTrue(listed.getJSONObject(0).getBoolean("default"));
+        assertFalse(listed.getJSONObject(0).has("resolutions"), "Resolutions aren't part of printers.details");
+
+        JSONArray names = snapshot.getPrinters(false);
+        assertEquals(names.getJSONObject(1).toString(), "{\"name\":\"HP LaserJet 4000\"}");
+
+        assertEquals(snapshot.getResolutions("Zebra ZD420"), resolutions.get("Zebra ZD420"));
+        assertTrue(snapshot.getResolutions("HP LaserJet 4000").isEmpty());
+        assertNull(snapshot.getResolutions("Missing"));
+    }
+
+    @Test
+    public void changedConfigurationIgnored() throws Exception {
+        PrinterSnapshot.write(file, "config-1", details, resolutions);
+        assertNull(PrinterSnapshot.read(file, "config-2"));
+
+        Files.write(file, "{\"fingerprint\":\"config-1\"}".getBytes());
+        assertNull(PrinterSnapshot.read(file, "config-1"), "Incomplete snapshot");
+    }
+
+    @Test
+    public void searchMatchesLiveOrder() throws Exception {
+        PrinterSnapshot snapshot = PrinterSnapshot.write(file, "config-1", details, resolutions);
+
+        assertEquals(snapshot.search("zebra zd420"), "Zebra ZD420");
+        assertEquals(snapshot.search("hp"), "HP LaserJet 4000");
+        assertEquals(snapshot.search("4000"), "HP LaserJet 4000");
+        assertNull(snapshot.search("Epson"));
+    }
+
+    @Test
+    public void searchTiesBrokenByName() throws Exception {
+        JSONArray listed = new JSONArray();
+        for(String name : new String[] {"Warehouse Label 2", "Warehouse Label 1", "Shipping Label"}) {
+            listed.put(new JSONObject().put("name", name));
+        }
+        PrinterSnapshot snapshot = PrinterSnapshot.write(file, "config-1", listed, new HashMap<>());
+
+        // same as the live index: first in sorted order, not first listed
+        assertEquals(snapshot.search("warehouse"), "Warehouse Label 1");
+        assertEquals(snapshot.search("label"), "Shipping Label");
+    }
+
+    @Test
+    public void fingerprintIsStableDigest() {
+        String fingerprint = PrinterSnapshot.calculateFingerprint();
+        assertTrue(fingerprint.matches("[0-9a-f]{64}"), fingerprint);
+        assertEquals(PrinterSnapshot.calculateFingerprint(), fingerprint);
+    }
+}
@@ -0,0 +1,135 @@
+package qz.printer.status;
+
+import org.eclipse.jetty.server.Server;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import qz.printer.status.job.NativeJobStatus;
+import qz.printer.status.printer.NativePrinterStatus;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.testng.Assert.*;
+
+/**
+ * Posts RSS pings the way CUPS does and answers Get-Notifications from a canned response
+ */
+public class CupsNotificationsTests {
+
+    private static final Path RES_DIR = Paths.get("test/qz/printer/status/resources");
+    private static final String RSS_PING = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<rss version=\"2.0\"><channel><title>CUPS</title></channel></rss>\n";
+
+    private List<Map<String,String>> events;
+    private final List<Integer> requested = new CopyOnWriteArrayList<>();
+    private final LinkedBlockingQueue<Status[]> received = new LinkedBlockingQueue<>();
+    private volatile int published;
+    private Server server;
+
+    @BeforeMethod
+    public void setUp() throws IOException {
+        events = IppFixture.readGroups(RES_DIR.resolve("cups-get-notifications.txt"), IppFixture.TAG_EVENT_NOTIFICATION);
+        requested.clear();
+        received.clear();
+        published = 0;
+    }
+
+    @AfterMethod
+    public void tearDown() throws Exception {
+        if (server != null) {
+            server.stop();
+            server = null;
+        }
+    }
+
+    @Test
+    public void burstOfPingsFetchedOnce() throws Exception {
+        CupsNotifications notifications = new CupsNotifications(this::getNotifications, received::add, 500);
+        server = new Server(0);
+        server.setHandler(new CupsStatusHandler(notifications));
+        server.start();
+        URL url = server.getURI().toURL();
+
+        published = 4;
+        for(int i = 0; i < 20; i++) {
+            postPing(url);
+        }
+        Status[] first = received.poll(5, TimeUnit.SECONDS);
+        assertNotNull(first);
+        assertEquals(requested, Collections.singletonList(1));
+        assertEquals(codes(first), Arrays.asList(NativeJobStatus.PRINTING, NativePrinterStatus.PROCESSING, NativePrinterStatus.PAPER_OUT));
+
+        // only events after the last sequence number are asked for
+        published = 6;
+        postPing(url);
+        Status[] second = received.poll(5, TimeUnit.SECONDS);
+        assertNotNull(second);
+        assertEquals(requested, Arrays.asList(1, 5));
+        assertEquals(codes(second), Arrays.asList(NativeJobStatus.COMPLETE, NativeJobStatus.SPOOLING));
+
+        Thread.sleep(700);
+        assertEquals(requested.size(), 2);
+        assertTrue(received.isEmpty());
+    }
+
+    @Test
+    public void eventsHandledOnce() {
+        CupsNotifications notifications = new CupsNotifications(this::getNotifications, received::add, 0);
+
+        Status[] statuses = notifications.process(events);
+        assertEquals(statuses.length, 5);
+        assertEquals(notifications.getLastSequence(), 6);
+        assertEquals(statuses[0].getJobId(), 12);
+        assertEquals(statuses[3].getJobId(), 12);
+        assertEquals(statuses[4].getPrinter(), "Office_Laser");
+
+        // overlapping responses don't report anything twice
+        assertEquals(notifications.process(events).length, 0);
+    }
+
+    /**
+     * Stands in for <code>CupsUtils.getNotifications</code>, returning the published events from <code>firstSequence</code> on
+     */
+    private List<Map<String,String>> getNotifications(int firstSequence) {
+        requested.add(firstSequence);
+        List<Map<String,String>> response = new ArrayList<>();
+        for(Map<String,String> event : events.subList(0, published)) {
+            if (Integer.parseInt(event.get("notify-sequence-number")) >= firstSequence) {
+                response.add(event);
+            }
+        }
+        return response;
+    }
+
+    private static void postPing(URL url) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection)url.openConnection();
+        connection.setRequestMethod("POST");
+        connection.setDoOutput(true);
+        connection.setRequestProperty("Content-Type", "application/rss+xml");
+        try(OutputStream out = connection.getOutputStream()) {
+            out.write(RSS_PING.getBytes(StandardCharsets.UTF_8));
+        }
+        assertEquals(connection.getResponseCode(), 200);
+        try(InputStream in = connection.getInputStream()) {
+            while(in.read() != -1) {}
+        }
+    }
+
+    private static List<NativeStatus> codes(Status[] statuses) {
+        List<NativeStatus> codes = new ArrayList<>();
+        for(Status status : statuses) {
+            codes.add(status.getCode());
+        }
+        return codes;
+    }
+}
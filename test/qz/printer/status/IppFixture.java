@@ -0,0 +1,60 @@
+package qz.printer.status;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * Reads IPP responses saved as text, one <code>group name=value[,value...]</code> attribute per line in the order
+ * libcups returns them, with <code>--</code> for the separator between two groups of the same kind
+ */
+public class IppFixture {
+
+    // group tags, as numbered in ipp.h
+    public static final int TAG_OPERATION = 1;
+    public static final int TAG_JOB = 2;
+    public static final int TAG_PRINTER = 4;
+    public static final int TAG_SUBSCRIPTION = 6;
+    public static final int TAG_EVENT_NOTIFICATION = 7;
+
+    private static final Map<String,Integer> GROUPS = new HashMap<>();
+
+    static {
+        GROUPS.put("operation", TAG_OPERATION);
+        GROUPS.put("job", TAG_JOB);
+        GROUPS.put("printer", TAG_PRINTER);
+        GROUPS.put("subscription", TAG_SUBSCRIPTION);
+        GROUPS.put("event", TAG_EVENT_NOTIFICATION);
+    }
+
+    public static List<IppAttribute> read(Path fixture) throws IOException {
+        List<IppAttribute> attributes = new ArrayList<>();
+        for(String line : Files.readAllLines(fixture, StandardCharsets.UTF_8)) {
+            if (line.startsWith("#") || line.trim().isEmpty()) { continue; }
+            if (line.equals("--")) {
+                attributes.add(new IppAttribute(null, 0, Collections.emptyList()));
+                continue;
+            }
+
+            int space = line.indexOf(' ');
+            int split = line.indexOf('=');
+            Integer group = GROUPS.get(line.substring(0, space));
+            if (group == null) {
+                throw new IOException("Unknown group in " + fixture + ": " + line);
+            }
+            String value = line.substring(split + 1);
+            List<String> values = value.isEmpty()? Collections.emptyList():Arrays.asList(value.split(","));
+            attributes.add(new IppAttribute(line.substring(space + 1, split), group, values));
+        }
+        return attributes;
+    }
+
+    /**
+     * Reads a fixture and splits it the way <code>CupsUtils</code> splits a response
+     */
+    public static List<Map<String,String>> readGroups(Path fixture, int groupTag) throws IOException {
+        return IppAttribute.group(read(fixture), groupTag);
+    }
+}
@@ -0,0 +1,97 @@
+package qz.printer.status;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import qz.printer.status.job.NativeJobStatus;
+import qz.printer.status.printer.NativePrinterStatus;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.testng.Assert.*;
+
+/**
+ * Checks ordering, coalescing and idle behavior of the status dispatch thread
+ */
+public class StatusDispatcherTests {
+
+    private final List<Status> sent = new CopyOnWriteArrayList<>();
+
+    @BeforeMethod
+    public void setUp() {
+        sent.clear();
+    }
+
+    @Test
+    public void repeatedStatusesCoalesced() throws Exception {
+        CountDownLatch done = new CountDownLatch(1);
+        StatusDispatcher dispatcher = new StatusDispatcher(status -> {
+            sent.add(status);
+            if ("Done".equals(status.getPrinter())) { done.countDown(); }
+        }, 60000);
+
+        for(int i = 0; i < 100; i++) {
+            dispatcher.dispatch(printer("Label", NativePrinterStatus.PAPER_OUT, 5));
+        }
+        // a change, then back, must each still be sent
+        dispatcher.dispatch(printer("Label", NativePrinterStatus.OK, 0),
+                            printer("Label", NativePrinterStatus.PAPER_OUT, 5),
+                            printer("Office", NativePrinterStatus.PAPER_OUT, 5),
+                            job("Label", NativeJobStatus.SPOOLING, 1),
+                            job("Label", NativeJobStatus.SPOOLING, 1),
+                            job("Label", NativeJobStatus.SPOOLING, 2),
+                            printer("Done", NativePrinterStatus.OK, 0));
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals(sent.size(), 7);
+        assertEquals(sent.get(0).getCode(), NativePrinterStatus.PAPER_OUT);
+        assertEquals(sent.get(1).getCode(), NativePrinterStatus.OK);
+        assertEquals(sent.get(2).getCode(), NativePrinterStatus.PAPER_OUT);
+        assertEquals(sent.get(3).getPrinter(), "Office");
+        assertEquals(sent.get(5).getJobId(), 2);
+    }
+
+    @Test
+    public void repeatsSentAgainAfterWindow() throws Exception {
+        StatusDispatcher dispatcher = new StatusDispatcher(sent::add, 50);
+
+        dispatcher.dispatch(printer("Label", NativePrinterStatus.OK, 0));
+        Thread.sleep(200);
+        dispatcher.dispatch(printer("Label", NativePrinterStatus.OK, 0));
+        Thread.sleep(200);
+
+        assertEquals(sent.size(), 2);
+    }
+
+    @Test
+    public void idleDispatcherSleeps() throws Exception {
+        CountDownLatch delivered = new CountDownLatch(1);
+        StatusDispatcher dispatcher = new StatusDispatcher(status -> delivered.countDown(), 0);
+        dispatcher.dispatch(printer("Label", NativePrinterStatus.OK, 0));
+        assertTrue(delivered.await(5, TimeUnit.SECONDS));
+
+        Thread thread = dispatcher.getThread();
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (!threads.isThreadCpuTimeSupported()) { return; }
+
+        long before = threads.getThreadCpuTime(thread.getId());
+        Thread.sleep(1000);
+        long used = threads.getThreadCpuTime(thread.getId()) - before;
+
+        assertTrue(thread.isAlive());
+        assertEquals(thread.getState(), Thread.State.WAITING);
+        assertTrue(used < TimeUnit.MILLISECONDS.toNanos(20), "Idle dispatcher used " + TimeUnit.NANOSECONDS.toMillis(used) + "ms of CPU");
+    }
+
+    private static Status printer(String printer, NativePrinterStatus code, int rawCode) {
+        return new Status(code, printer, rawCode);
+    }
+
+    private static Status job(String printer, NativeJobStatus code, int jobId) {
+        return new Status(code, printer, code.name(), jobId, "Job " + jobId);
+    }
+}
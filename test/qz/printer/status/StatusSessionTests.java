@@ -0,0 +1,67 @@
+package qz.printer.status;
+
+import org.codehaus.jettison.json.JSONArray;
+import org.codehaus.jettison.json.JSONObject;
+import org.testng.annotations.Test;
+import qz.printer.status.job.NativeJobStatus;
+import qz.printer.status.printer.NativePrinterStatus;
+
+import static org.testng.Assert.*;
+
+/**
+ * Checks the server-side subscription filters and the shared encoding of status events
+ */
+public class StatusSessionTests {
+
+    private static final Status PAPER_OUT = new Status(NativePrinterStatus.PAPER_OUT, "Label", 5);
+    private static final Status PRINTER_OK = new Status(NativePrinterStatus.OK, "Label", 0);
+    private static final Status JOB_SPOOLING = new Status(NativeJobStatus.SPOOLING, "Label", "SPOOLING", 1, "Job 1");
+    private static final Status JOB_ERROR = new Status(NativeJobStatus.ERROR, "Label", "ERROR", 2, "Job 2");
+
+    @Test
+    public void unfilteredByDefault() throws Exception {
+        StatusSession session = new StatusSession(null);
+        session.setFilters(new JSONObject());
+
+        assertTrue(session.isWanted(PAPER_OUT));
+        assertTrue(session.isWanted(PRINTER_OK));
+        assertTrue(session.isWanted(JOB_SPOOLING));
+    }
+
+    @Test
+    public void filteredByTypeAndSeverity() throws Exception {
+        StatusSession session = new StatusSession(null);
+        session.setFilters(new JSONObject().put("eventTypes", new JSONArray().put("printer")));
+        assertTrue(session.isWanted(PAPER_OUT));
+        assertFalse(session.isWanted(JOB_SPOOLING));
+
+        // later calls only replace the filters they include
+        session.setFilters(new JSONObject().put("severity", "WARN"));
+        assertTrue(session.isWanted(PAPER_OUT));
+        assertFalse(session.isWanted(PRINTER_OK));
+        assertFalse(session.isWanted(JOB_ERROR));
+
+        session.setFilters(new JSONObject().put("eventTypes", new JSONArray().put("JOB").put("PRINTER")));
+        assertTrue(session.isWanted(JOB_ERROR));
+        assertFalse(session.isWanted(JOB_SPOOLING));
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void unknownSeverityRejected() throws Exception {
+        new StatusSession(null).setFilters(new JSONObject().put("severity", "LOUD"));
+    }
+
+    @Test
+    public void frameEncodedOnce() throws Exception {
+        StatusFrame frame = new StatusFrame(JOB_ERROR);
+        String encoded = frame.getEncoded();
+        assertSame(frame.getEncoded(), encoded);
+
+        JSONObject message = new JSONObject(encoded);
+        assertEquals(message.getString("type"), "PRINTER");
+        JSONObject event = new JSONObject(message.getString("event"));
+        assertEquals(event.getString("statusText"), "ERROR");
+        assertEquals(event.getInt("jobId"), 2);
+        assertEquals(event.getString("type"), "ACTION");
+    }
+}